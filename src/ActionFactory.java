@@ -26,13 +26,18 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
 import javax.swing.JTable;
 import javax.swing.Timer;
 import javax.swing.filechooser.FileFilter;
@@ -73,12 +78,30 @@ public class ActionFactory implements ControllerListener {
 	/** The action to load results from a file. */
 	private Action loadAction;
 
+	/** The action to merge several data files into one. */
+	private Action mergeAction;
+
+	/** The action to export the selected results for analysis in other tools. */
+	private Action exportAction;
+
+	/** The action to import result and runtime files written outside the diagnostic tool. */
+	private Action importAction;
+
 	/** The action to close the diagnostic tool. */
 	private Action exitAction;
 
+	/** The action to toggle faster but weaker compression of saved data files. */
+	private Action fastCompressionAction;
+
+	/** The action to toggle writing finished seeds to the journal. */
+	private Action journalResultsAction;
+
 	/** The action to toggle the display of the last run's trace. */
 	private Action showLastTraceAction;
 
+	/** The action to toggle logarithmic NFE buckets for quantiles. */
+	private Action logarithmicBinningAction;
+
 	/** The action to toggle on all indicator collectors. */
 	private Action enableAllIndicatorsAction;
 
@@ -198,11 +221,16 @@ public class ActionFactory implements ControllerListener {
 							EXTENSION);
 					}
 
-					try {
-						controller.saveData(file);
-					} catch (IOException e) {
-						controller.handleException(e);
-					}
+					final File target= file;
+
+					new BackgroundTask(frame, controller, localization.getString("text.saving")) {
+
+						@Override
+						protected void run(TaskProgress progress) throws Exception {
+							controller.saveData(target, progress);
+						}
+
+					}.start();
 				}
 			}
 
@@ -226,12 +254,166 @@ public class ActionFactory implements ControllerListener {
 				int result= fileChooser.showOpenDialog(frame);
 
 				if (result == JFileChooser.APPROVE_OPTION) {
-					try {
-						controller.loadData(fileChooser.getSelectedFile());
-					} catch (IOException e) {
-						controller.handleException(e);
+					final File file= fileChooser.getSelectedFile();
+
+					new BackgroundTask(frame, controller, localization.getString("text.loading")) {
+
+						@Override
+						protected void run(TaskProgress progress) throws Exception {
+							controller.loadData(file, progress);
+						}
+
+					}.start();
+				}
+			}
+
+		};
+
+		mergeAction= new AbstractAction() {
+
+			private static final long serialVersionUID= -2468710573297420167L;
+
+			{
+				putValue(Action.NAME, localization.getString("action.merge.name"));
+				putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("action.merge.description"));
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent event) {
+				JFileChooser fileChooser= new JFileChooser();
+				fileChooser.setFileFilter(FILTER);
+				fileChooser.setMultiSelectionEnabled(true);
+
+				if (fileChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) { return; }
+
+				final List<File> inputs= Arrays.asList(fileChooser.getSelectedFiles());
+
+				fileChooser= new JFileChooser();
+				fileChooser.setFileFilter(FILTER);
+
+				if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) { return; }
+
+				File file= fileChooser.getSelectedFile();
+
+				if (!file.getName().toLowerCase().endsWith(EXTENSION)) {
+					file= new File(file.getParent(), file.getName() + EXTENSION);
+				}
+
+				final File output= file;
+				final SessionFormat.Codec codec= controller.getSessionCodec();
+
+				new BackgroundTask(frame, controller, localization.getString("text.merging")) {
+
+					private SessionMerger.Result result;
+
+					@Override
+					protected void run(TaskProgress progress) throws Exception {
+						result= SessionMerger.merge(inputs, output, codec, progress);
 					}
+
+					@Override
+					protected void succeeded() {
+						JOptionPane.showMessageDialog(frame,
+							localization.getString("text.mergeComplete", inputs.size(),
+								result.getSeedCount(), result.getDuplicateCount()),
+							localization.getString("title.merge"),
+							JOptionPane.INFORMATION_MESSAGE);
+					}
+
+				}.start();
+			}
+
+		};
+
+		exportAction= new AbstractAction() {
+
+			private static final long serialVersionUID= 5120847739610295384L;
+
+			{
+				putValue(Action.NAME, localization.getString("action.export.name"));
+				putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("action.export.description"));
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent event) {
+				List<ResultKey> keys= frame.getSelectedResults();
+
+				if (keys.isEmpty()) {
+					keys= new ArrayList<>(new TreeSet<>(controller.getKeys()));
+				}
+
+				FileFilter csvFilter= new FileNameExtensionFilter(
+					localization.getString("file.csv.description"),
+					ResultExporter.Format.CSV.getExtension());
+				FileFilter columnarFilter= new FileNameExtensionFilter(
+					localization.getString("file.columnar.description"),
+					ResultExporter.Format.COLUMNAR.getExtension());
+
+				JFileChooser fileChooser= new JFileChooser();
+				fileChooser.setAcceptAllFileFilterUsed(false);
+				fileChooser.addChoosableFileFilter(csvFilter);
+				fileChooser.addChoosableFileFilter(columnarFilter);
+				fileChooser.setFileFilter(csvFilter);
+
+				if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) { return; }
+
+				final ResultExporter.Format format= fileChooser.getFileFilter() == columnarFilter ?
+					ResultExporter.Format.COLUMNAR : ResultExporter.Format.CSV;
+				String extension= "." + format.getExtension();
+				File file= fileChooser.getSelectedFile();
+
+				if (!file.getName().toLowerCase().endsWith(extension)) {
+					file= new File(file.getParent(), file.getName() + extension);
 				}
+
+				final File output= file;
+				final List<ResultKey> selected= keys;
+
+				new BackgroundTask(frame, controller, localization.getString("text.exporting")) {
+
+					@Override
+					protected void run(TaskProgress progress) throws Exception {
+						ResultExporter.export(controller, selected, output, format, progress);
+					}
+
+				}.start();
+			}
+
+		};
+
+		importAction= new AbstractAction() {
+
+			private static final long serialVersionUID= -7365019825934712286L;
+
+			{
+				putValue(Action.NAME, localization.getString("action.import.name"));
+				putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("action.import.description"));
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent event) {
+				JFileChooser fileChooser= new JFileChooser();
+				fileChooser.setMultiSelectionEnabled(true);
+
+				if (fileChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) { return; }
+
+				final List<File> files= Arrays.asList(fileChooser.getSelectedFiles());
+
+				// entries not describing themselves belong to the run control pane's selection
+				final ResultImporter importer= new ResultImporter(controller, frame.getAlgorithm(),
+					frame.getProblem(), frame.getParameterization());
+
+				new BackgroundTask(frame, controller, localization.getString("text.importing")) {
+
+					@Override
+					protected void run(TaskProgress progress) throws Exception {
+						importer.importFiles(files, progress);
+					}
+
+				}.start();
 			}
 
 		};
@@ -253,6 +435,44 @@ public class ActionFactory implements ControllerListener {
 
 		};
 
+		fastCompressionAction= new AbstractAction() {
+
+			private static final long serialVersionUID= 3958227469914387245L;
+
+			{
+				putValue(Action.NAME, localization.getString("action.fastCompression.name"));
+				putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("action.fastCompression.description"));
+				putValue(Action.SELECTED_KEY,
+					controller.getSessionCodec() == SessionFormat.Codec.DEFLATE_FAST);
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				controller.setSessionCodec((Boolean) getValue(Action.SELECTED_KEY) ?
+					SessionFormat.Codec.DEFLATE_FAST : SessionFormat.Codec.DEFLATE);
+			}
+
+		};
+
+		journalResultsAction= new AbstractAction() {
+
+			private static final long serialVersionUID= -1544107392617925374L;
+
+			{
+				putValue(Action.NAME, localization.getString("action.journalResults.name"));
+				putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("action.journalResults.description"));
+				putValue(Action.SELECTED_KEY, controller.getJournalResults());
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				controller.setJournalResults((Boolean) getValue(Action.SELECTED_KEY));
+			}
+
+		};
+
 		showLastTraceAction= new AbstractAction() {
 
 			private static final long serialVersionUID= -6068811236087074314L;
@@ -271,6 +491,24 @@ public class ActionFactory implements ControllerListener {
 
 		};
 
+		logarithmicBinningAction= new AbstractAction() {
+
+			private static final long serialVersionUID= -2638660828305197205L;
+
+			{
+				putValue(Action.NAME, localization.getString("action.logarithmicBinning.name"));
+				putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("action.logarithmicBinning.description"));
+				putValue(Action.SELECTED_KEY, controller.getLogarithmicBinning());
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				controller.setLogarithmicBinning((Boolean) getValue(Action.SELECTED_KEY));
+			}
+
+		};
+
 		enableAllIndicatorsAction= new AbstractAction() {
 
 			private static final long serialVersionUID= -6068811236087074314L;
@@ -845,6 +1083,12 @@ public class ActionFactory implements ControllerListener {
 
 				memoryUsageAction.putValue(Action.NAME,
 					localization.getString("text.memory", used, available));
+
+				RedrawScheduler scheduler= frame.getRedrawScheduler();
+
+				memoryUsageAction.putValue(Action.SHORT_DESCRIPTION,
+					localization.getString("text.redraws", scheduler.getRedrawCount(),
+						scheduler.getRequestCount(), scheduler.getFrameCount()));
 			}
 
 		});
@@ -917,6 +1161,27 @@ public class ActionFactory implements ControllerListener {
 		return loadAction;
 	}
 
+	/** Returns the action to merge several data files into one.
+	 *
+	 * @return the action to merge several data files into one */
+	public Action getMergeAction() {
+		return mergeAction;
+	}
+
+	/** Returns the action to export the selected results for analysis in other tools.
+	 *
+	 * @return the action to export the selected results for analysis in other tools */
+	public Action getExportAction() {
+		return exportAction;
+	}
+
+	/** Returns the action to import result and runtime files written outside the diagnostic tool.
+	 *
+	 * @return the action to import result and runtime files written outside the diagnostic tool */
+	public Action getImportAction() {
+		return importAction;
+	}
+
 	/** Returns the action to close the diagnostic tool.
 	 *
 	 * @return the action to close the diagnostic tool */
@@ -924,6 +1189,20 @@ public class ActionFactory implements ControllerListener {
 		return exitAction;
 	}
 
+	/** Returns the action to toggle faster but weaker compression of saved data files.
+	 *
+	 * @return the action to toggle faster but weaker compression of saved data files */
+	public Action getFastCompressionAction() {
+		return fastCompressionAction;
+	}
+
+	/** Returns the action to toggle writing finished seeds to the journal.
+	 *
+	 * @return the action to toggle writing finished seeds to the journal */
+	public Action getJournalResultsAction() {
+		return journalResultsAction;
+	}
+
 	/** Returns the action to show the last run's trace.
 	 *
 	 * @return the action to show the last run's trace */
@@ -931,6 +1210,13 @@ public class ActionFactory implements ControllerListener {
 		return showLastTraceAction;
 	}
 
+	/** Returns the action to toggle logarithmic NFE buckets for quantiles.
+	 *
+	 * @return the action to toggle logarithmic NFE buckets for quantiles */
+	public Action getLogarithmicBinningAction() {
+		return logarithmicBinningAction;
+	}
+
 	/** Returns the action to toggle on all indocator collectors.
 	 *
 	 * @return the action to toggle on all indocator collectors */
@@ -1187,6 +1473,8 @@ public class ActionFactory implements ControllerListener {
 			getRunAction().setEnabled(!controller.isRunning());
 			getCancelAction().setEnabled(controller.isRunning());
 			getClearAction().setEnabled(!controller.isRunning());
+			getJournalResultsAction().putValue(Action.SELECTED_KEY,
+				controller.getJournalResults());
 		} else if (event.getType().equals(ControllerEvent.Type.VIEW_CHANGED) ||
 			event.getType().equals(ControllerEvent.Type.MODEL_CHANGED)) {
 			Set<String> problems= new HashSet<>();
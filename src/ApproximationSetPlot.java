@@ -33,7 +33,6 @@ import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 import org.moeaframework.analysis.collector.Accumulator;
-import org.moeaframework.core.EpsilonBoxDominanceArchive;
 import org.moeaframework.core.NondominatedPopulation;
 import org.moeaframework.core.Solution;
 import org.moeaframework.util.Localization;
@@ -56,6 +55,30 @@ public class ApproximationSetPlot extends ResultPlot {
 	 */
 	private static final double EPSILON = 0.01;
 	
+	/**
+	 * The chart, which is created on the first update and reused afterwards;
+	 * or {@code null} if no chart has been created yet.
+	 */
+	private JFreeChart chart;
+	
+	/**
+	 * The renderer of the approximation sets, which rasterizes very large
+	 * sets.
+	 */
+	private RasterScatterRenderer renderer;
+	
+	/**
+	 * The accumulator whose final approximation set is cached in
+	 * {@code lastTraceDataset}; or {@code null} if nothing is cached.
+	 */
+	private Accumulator lastTraceAccumulator;
+	
+	/**
+	 * The cached dataset showing the final approximation set of
+	 * {@code lastTraceAccumulator}.
+	 */
+	private XYSeriesCollection lastTraceDataset;
+	
 	/**
 	 * Constructs a new plot do display the Pareto approximation set.
 	 * 
@@ -69,107 +92,205 @@ public class ApproximationSetPlot extends ResultPlot {
 	}
 	
 	@Override
-	protected void update() {
-		XYSeriesCollection dataset = new XYSeriesCollection();
+	protected PlotUpdate createUpdate() {
+		final List<ResultKey> selectedResults = frame.getSelectedResults();
+		final Accumulator lastAccumulator = controller.getShowLastTrace() ?
+				controller.getLastAccumulator() : null;
 		
-		for (ResultKey key : frame.getSelectedResults()) {
-			NondominatedPopulation population = new EpsilonBoxDominanceArchive(
-					EPSILON);
+		return new PlotUpdate() {
 			
-			for (Accumulator accumulator : controller.get(key)) {
-				if (!accumulator.keySet().contains(metric)) {
-					continue;
-				}
-				
-				List<?> list = (List<?>)accumulator.get(metric, 
-						accumulator.size(metric)-1);
+			private XYSeriesCollection dataset;
+			
+			private XYSeriesCollection dataset2;
+
+			@Override
+			protected void prepare() {
+				dataset = generateSeries(selectedResults, this);
 				
-				for (Object object : list) {
-					population.add((Solution)object);
+				if ((lastAccumulator != null) && 
+						lastAccumulator.keySet().contains(metric)) {
+					dataset2 = generateLastTraceSeries(lastAccumulator);
 				}
 			}
+
+			@Override
+			protected void apply() {
+				display(dataset, dataset2);
+			}
 			
-			if (!population.isEmpty()) {
-				XYSeries series = new XYSeries(key, false, true);
-				
-				for (Solution solution : population) {
-					if (solution.getNumberOfObjectives() == 1) {
-						series.add(solution.getObjective(0), 
-								solution.getObjective(0));
-					} else if (solution.getNumberOfObjectives() > 1) {
-						series.add(solution.getObjective(0), 
-								solution.getObjective(1));
-					}
-				}
-				
+		};
+	}
+	
+	/**
+	 * Generates the series containing the merged approximation set of each
+	 * selected result.  The merged approximation sets are maintained by the
+	 * controller as seeds are added, so this only copies the cached points
+	 * into the series.  The series of each result are generated in parallel
+	 * and added in the order of the keys.  This method is invoked on a
+	 * background thread.
+	 * 
+	 * @param selectedResults the selected results
+	 * @param update the update for which the series are generated, which is
+	 *        checked for cancellation between results
+	 * @return the dataset containing the generated series
+	 */
+	protected XYSeriesCollection generateSeries(List<ResultKey> selectedResults,
+			PlotUpdate update) {
+		XYSeriesCollection dataset = new XYSeriesCollection();
+		List<XYSeries> results = generateAll(selectedResults, update,
+				new ResultGenerator<XYSeries>() {
+
+			@Override
+			public XYSeries generate(ResultKey key) {
+				return generateSeries(key);
+			}
+			
+		});
+		
+		for (XYSeries series : results) {
+			if (series != null) {
 				dataset.addSeries(series);
 			}
 		}
 		
-		JFreeChart chart = ChartFactory.createScatterPlot(metric,
-				localization.getString("text.objective", 1),
-				localization.getString("text.objective", 2),
-				dataset,
-				PlotOrientation.VERTICAL,
-				true,
-				true,
-				false);
+		return dataset;
+	}
+	
+	/**
+	 * Generates the series containing the merged approximation set of the
+	 * specified result.  This method may be invoked concurrently for
+	 * different results.
+	 * 
+	 * @param key the key identifying the result
+	 * @return the series containing the merged approximation set; or
+	 *         {@code null} if the approximation set is empty
+	 */
+	protected XYSeries generateSeries(ResultKey key) {
+		double[][] objectives = controller.getApproximationSet(key, metric,
+				EPSILON);
 		
-		XYPlot plot = chart.getXYPlot();
-		XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(false, 
-				true);
+		if (objectives.length == 0) {
+			return null;
+		}
 		
-		for (int i=0; i<dataset.getSeriesCount(); i++) {
-			Paint paint = frame.getPaintHelper().get(dataset.getSeriesKey(i));
-
-			renderer.setSeriesStroke(i, new BasicStroke(3f, 1, 1));
-			renderer.setSeriesPaint(i, paint);
-			renderer.setSeriesFillPaint(i, paint);
+		XYSeries series = new XYSeries(key, false, true);
+		
+		for (double[] point : objectives) {
+			if (point.length == 1) {
+				series.add(point[0], point[0]);
+			} else if (point.length > 1) {
+				series.add(point[0], point[1]);
+			}
 		}
 		
-		plot.setRenderer(renderer);
+		return series;
+	}
+	
+	/**
+	 * Generates the series showing the final approximation set of the last
+	 * run.  The dataset is cached and reused until the last run changes.
+	 * This method is invoked on a background thread.
+	 * 
+	 * @param lastAccumulator the accumulator of the last run
+	 * @return the dataset containing the last approximation set
+	 */
+	protected synchronized XYSeriesCollection generateLastTraceSeries(
+			Accumulator lastAccumulator) {
+		if (lastAccumulator == lastTraceAccumulator) {
+			return lastTraceDataset;
+		}
+		
+		XYSeriesCollection dataset2 = new XYSeriesCollection();
+		NondominatedPopulation population = SkylineMerger.merge(EPSILON,
+				ArchiveCache.getFinalSet(lastAccumulator, metric));
 		
-		//add overlay
-		if (controller.getShowLastTrace() &&
-				(controller.getLastAccumulator() != null) && 
-				controller.getLastAccumulator().keySet().contains(metric)) {
-			XYSeriesCollection dataset2 = new XYSeriesCollection();
-			NondominatedPopulation population = new EpsilonBoxDominanceArchive(
-					EPSILON);
+		if (!population.isEmpty()) {
+			XYSeries series = new XYSeries(
+					localization.getString("text.last"),
+					false,
+					true);
 			
-			if (controller.getLastAccumulator().keySet().contains(metric)) {
-				List<?> list = (List<?>)controller.getLastAccumulator().get(
-						metric, controller.getLastAccumulator().size(metric)-1);
-				
-				for (Object object : list) {
-					population.add((Solution)object);
-				}
+			for (Solution solution : population) {
+				series.add(solution.getObjective(0), 
+						solution.getObjective(1));
 			}
 			
-			if (!population.isEmpty()) {
-				XYSeries series = new XYSeries(
-						localization.getString("text.last"),
-						false,
-						true);
-				
-				for (Solution solution : population) {
-					series.add(solution.getObjective(0), 
-							solution.getObjective(1));
-				}
-				
-				dataset2.addSeries(series);
+			dataset2.addSeries(series);
+		}
+		
+		lastTraceAccumulator = lastAccumulator;
+		lastTraceDataset = dataset2;
+		return dataset2;
+	}
+	
+	/**
+	 * Shows the prepared datasets in the chart of this plot, creating the
+	 * chart on the first update.  This method is invoked on the event
+	 * dispatch thread.
+	 * 
+	 * @param dataset the merged approximation sets of the selected results
+	 * @param dataset2 the last approximation set; or {@code null} if it is not
+	 *        shown
+	 */
+	protected void display(XYSeriesCollection dataset, 
+			XYSeriesCollection dataset2) {
+		if (chart == null) {
+			createChart();
+		}
+		
+		XYPlot plot = chart.getXYPlot();
+		
+		//suspend change events so the chart is redrawn only once
+		chart.setNotify(false);
+		
+		try {
+			for (int i=0; i<dataset.getSeriesCount(); i++) {
+				Paint paint = frame.getPaintHelper().get(
+						dataset.getSeriesKey(i));
+	
+				renderer.setSeriesStroke(i, new BasicStroke(3f, 1, 1));
+				renderer.setSeriesPaint(i, paint);
+				renderer.setSeriesFillPaint(i, paint);
 			}
 			
-			XYLineAndShapeRenderer renderer2 = new XYLineAndShapeRenderer(false,
-					true);
-			renderer2.setSeriesPaint(0, Color.BLACK);
-			
+			plot.setDataset(0, dataset);
 			plot.setDataset(1, dataset2);
-			plot.setRenderer(1, renderer2);
-			plot.setDatasetRenderingOrder(DatasetRenderingOrder.FORWARD);
+			
+			//rescale the axes to the new data
+			plot.getDomainAxis().setAutoRange(true);
+			plot.getRangeAxis().setAutoRange(true);
+		} finally {
+			chart.setNotify(true);
 		}
+	}
+	
+	/**
+	 * Creates the chart and installs it in this plot.  The chart, its
+	 * renderers, axes and legend are kept for the lifetime of this plot, and
+	 * each update only replaces the datasets.
+	 */
+	protected void createChart() {
+		chart = ChartFactory.createScatterPlot(metric,
+				localization.getString("text.objective", 1),
+				localization.getString("text.objective", 2),
+				null,
+				PlotOrientation.VERTICAL,
+				true,
+				true,
+				false);
+		
+		XYPlot plot = chart.getXYPlot();
+		renderer = new RasterScatterRenderer();
+		plot.setRenderer(renderer);
+		
+		//setup the overlay
+		XYLineAndShapeRenderer renderer2 = new XYLineAndShapeRenderer(false,
+				true);
+		renderer2.setSeriesPaint(0, Color.BLACK);
+		
+		plot.setRenderer(1, renderer2);
+		plot.setDatasetRenderingOrder(DatasetRenderingOrder.FORWARD);
 
-		removeAll();
 		add(new ChartPanel(chart), BorderLayout.CENTER);
 		revalidate();
 		repaint();
@@ -27,6 +27,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -41,7 +46,11 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JSlider;
+import javax.swing.JSpinner;
 import javax.swing.JSplitPane;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
@@ -54,14 +63,13 @@ import org.jfree.chart.event.ChartChangeEvent;
 import org.jfree.chart.event.ChartChangeListener;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
-import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
 import org.jfree.data.Range;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 import org.moeaframework.analysis.collector.Accumulator;
 import org.moeaframework.core.NondominatedPopulation;
 import org.moeaframework.core.Solution;
-import org.moeaframework.core.variable.RealVariable;
 import org.moeaframework.util.Localization;
 
 /**
@@ -77,6 +85,43 @@ ActionListener, ChartChangeListener, ListSelectionListener {
 	 */
 	private static Localization localization = Localization.getLocalization(
 			ApproximationSetViewer.class);
+	
+	/**
+	 * The default frame rate of the playback, in frames per second.
+	 */
+	private static final int DEFAULT_FRAME_RATE = 30;
+	
+	/**
+	 * The number of frames shown when playing back the whole NFE range.
+	 */
+	private static final int PLAYBACK_FRAMES = 300;
+	
+	/**
+	 * The number of upcoming frames prefetched during playback.
+	 */
+	private static final int PLAYBACK_LOOKAHEAD = 30;
+	
+	/**
+	 * The minimum interval between renders while the slider is dragged, in
+	 * milliseconds.
+	 */
+	private static final int DRAG_INTERVAL = 50;
+	
+	/**
+	 * The executor loading frames while the slider is dragged, shared by all
+	 * viewers.
+	 */
+	private static final ExecutorService RENDERER = 
+			Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "frame-render");
+					thread.setDaemon(true);
+					return thread;
+				}
+				
+			});
 
 	/**
 	 * The accumulators which contain {@code "Approximation Set"} entries.
@@ -88,11 +133,64 @@ ActionListener, ChartChangeListener, ListSelectionListener {
 	 */
 	private JPanel chartContainer;
 	
+	/**
+	 * The chart, which is reused for every update.
+	 */
+	private JFreeChart chart;
+	
+	/**
+	 * The dataset shown in the chart, which is updated in place.
+	 */
+	private XYSeriesCollection dataset;
+	
+	/**
+	 * The cached frames of the approximation sets, indexed by NFE.
+	 */
+	private FrameCache frames;
+	
 	/**
 	 * The slider controlling the current NFE.
 	 */
 	private JSlider slider;
 	
+	/**
+	 * The timer advancing the slider during playback.
+	 */
+	private Timer playback;
+	
+	/**
+	 * The action starting and pausing the playback.
+	 */
+	private Action playAction;
+	
+	/**
+	 * The control for choosing the frame rate of the playback.
+	 */
+	private JSpinner frameRate;
+	
+	/**
+	 * The timer rendering the latest slider position while the slider is
+	 * dragged.
+	 */
+	private Timer dragThrottle;
+	
+	/**
+	 * The number of the most recent render, so superseded renders are
+	 * abandoned.
+	 */
+	private final AtomicLong renders = new AtomicLong();
+	
+	/**
+	 * The render still loading its frames in the background; or {@code null}
+	 * if no render is in progress.
+	 */
+	private Future<?> pendingRender;
+	
+	/**
+	 * The slider position of the most recent render.
+	 */
+	private int requestedValue;
+	
 	/**
 	 * The x-axis bounds of the initial approximation set(s).
 	 */
@@ -253,6 +351,56 @@ ActionListener, ChartChangeListener, ListSelectionListener {
 		slider.setMajorTickSpacing(1000);
 		slider.addChangeListener(this);
 		
+		frames = new FrameCache(accumulators);
+		
+		//initialize the playback controls
+		playback = new Timer(1000 / DEFAULT_FRAME_RATE, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				nextFrame();
+			}
+			
+		});
+		
+		playAction = new AbstractAction() {
+
+			private static final long serialVersionUID = 2307587429536102713L;
+			
+			{
+				putValue(Action.NAME, 
+						localization.getString("action.play.name"));
+				putValue(Action.SHORT_DESCRIPTION, 
+						localization.getString("action.play.description"));
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (playback.isRunning()) {
+					pause();
+				} else {
+					play();
+				}
+			}
+			
+		};
+		
+		frameRate = new JSpinner(new SpinnerNumberModel(DEFAULT_FRAME_RATE, 1,
+				60, 1));
+		frameRate.addChangeListener(this);
+		
+		//while dragging, render the latest slider position at a bounded rate
+		dragThrottle = new Timer(DRAG_INTERVAL, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (slider.getValue() != requestedValue) {
+					render();
+				}
+			}
+			
+		});
+		
 		//initializes the options available for axis plotting
 		Solution solution = (Solution)((List<?>)accumulators.get(0).get(
 				"Approximation Set", 0)).get(0);
@@ -350,6 +498,26 @@ ActionListener, ChartChangeListener, ListSelectionListener {
 				Color.BLACK);
 		
 		chartContainer = new JPanel(new BorderLayout());
+		
+		//initialize the chart, which is reused for every update
+		dataset = new XYSeriesCollection();
+		chart = ChartFactory.createScatterPlot(
+				getTitle(), 
+				(String)xAxisSelection.getSelectedItem(),
+				(String)yAxisSelection.getSelectedItem(), 
+				dataset, 
+				PlotOrientation.VERTICAL, 
+				true, 
+				true,
+				false);
+		
+		//set the renderer to only display shapes, rasterizing large sets
+		chart.getXYPlot().setRenderer(new RasterScatterRenderer());
+		
+		//register with the chart to receive zoom events
+		chart.addChangeListener(this);
+		
+		chartContainer.add(new ChartPanel(chart), BorderLayout.CENTER);
 	}
 	
 	/**
@@ -371,8 +539,18 @@ ActionListener, ChartChangeListener, ListSelectionListener {
 		objectivePane.add(new JLabel(localization.getString("text.yAxis")));
 		objectivePane.add(yAxisSelection);
 		
+		JPanel frameRatePane = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		frameRatePane.add(new JLabel(
+				localization.getString("text.frameRate")));
+		frameRatePane.add(frameRate);
+		
+		JPanel sliderPane = new JPanel(new BorderLayout());
+		sliderPane.add(new JButton(playAction), BorderLayout.WEST);
+		sliderPane.add(slider, BorderLayout.CENTER);
+		sliderPane.add(frameRatePane, BorderLayout.EAST);
+		
 		JPanel controlPane = new JPanel(new GridLayout(3, 1));
-		controlPane.add(slider);
+		controlPane.add(sliderPane);
 		controlPane.add(buttonPane);
 		controlPane.add(objectivePane);
 		
@@ -407,138 +585,303 @@ ActionListener, ChartChangeListener, ListSelectionListener {
 		int selection = axis == 0 ? xAxisSelection.getSelectedIndex() : 
 				yAxisSelection.getSelectedIndex();
 		
-		if (selection < solution.getNumberOfObjectives()) {
-			return solution.getObjective(selection);
-		} else {
-			selection -= solution.getNumberOfObjectives();
+		return FrameCache.getValue(solution, selection);
+	}
+	
+	/**
+	 * Updates the display to show the exact frame at the slider position,
+	 * cancelling any render still in progress.  This method must only be
+	 * invoked on the event dispatch thread.
+	 */
+	protected void update() {
+		int[] seeds = seedList.getSelectedIndices();
+		int value = slider.getValue();
+		long number = renders.incrementAndGet();
+		
+		if (pendingRender != null) {
+			pendingRender.cancel(false);
+			pendingRender = null;
 		}
 		
-		if (selection < solution.getNumberOfConstraints()) {
-			return solution.getConstraint(selection);
-		} else {
-			selection -= solution.getNumberOfConstraints();
+		requestedValue = value;
+		display(seeds, value, loadFrames(seeds, value, 
+				xAxisSelection.getSelectedIndex(), 
+				yAxisSelection.getSelectedIndex(), number));
+	}
+	
+	/**
+	 * Renders the slider position in the background while the slider is
+	 * dragged.  The frames are loaded on a background thread and displayed
+	 * only if no newer position was requested in the meantime; any render
+	 * still in progress is cancelled.  This method must only be invoked on
+	 * the event dispatch thread.
+	 */
+	protected void render() {
+		final int[] seeds = seedList.getSelectedIndices();
+		final int value = slider.getValue();
+		final int xAxis = xAxisSelection.getSelectedIndex();
+		final int yAxis = yAxisSelection.getSelectedIndex();
+		final long number = renders.incrementAndGet();
+		
+		if (pendingRender != null) {
+			pendingRender.cancel(false);
 		}
 		
-		if (selection < solution.getNumberOfVariables()) {
-			if (solution.getVariable(selection) instanceof RealVariable) {
-				return ((RealVariable)solution.getVariable(selection))
-						.getValue();
-			} else {
-				return 0.0;
+		requestedValue = value;
+		pendingRender = RENDERER.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				final double[][][] points = loadFrames(seeds, value, xAxis, 
+						yAxis, number);
+				
+				if (points == null) {
+					return;
+				}
+				
+				SwingUtilities.invokeLater(new Runnable() {
+
+					@Override
+					public void run() {
+						if (renders.get() == number) {
+							pendingRender = null;
+							display(seeds, value, points);
+						}
+					}
+					
+				});
+			}
+			
+		});
+	}
+	
+	/**
+	 * Loads the frames of the specified seeds at an NFE from the frame cache,
+	 * finding the snapshot of each seed by binary search.  This method may be
+	 * invoked on a background thread.
+	 * 
+	 * @param seeds the indices of the seeds
+	 * @param value the NFE
+	 * @param xAxis the value shown on the x-axis
+	 * @param yAxis the value shown on the y-axis
+	 * @param number the number of the render loading the frames
+	 * @return the frame of each seed, or {@code null} for seeds without
+	 *         approximation sets; or {@code null} if the render was
+	 *         superseded while loading
+	 */
+	protected double[][][] loadFrames(int[] seeds, int value, int xAxis, 
+			int yAxis, long number) {
+		double[][][] points = new double[seeds.length][][];
+		
+		for (int i=0; i<seeds.length; i++) {
+			if (renders.get() != number) {
+				return null;
+			}
+			
+			if (accumulators.get(seeds[i]).keySet().contains(
+					"Approximation Set")) {
+				points[i] = frames.get(seeds[i], 
+						frames.getIndex(seeds[i], value), xAxis, yAxis);
 			}
-		} else {
-			return 0.0;
 		}
+		
+		return points;
 	}
 	
 	/**
-	 * Updates the display.  This method must only be invoked on the event
-	 * dispatch thread.
+	 * Shows the loaded frames in the chart, and then prefetches the frames
+	 * around the displayed position, or ahead of it during playback, in the
+	 * background.  This method must only be invoked on the event dispatch
+	 * thread.
+	 * 
+	 * @param seeds the indices of the seeds
+	 * @param value the NFE of the frames
+	 * @param points the frame of each seed, or {@code null} for seeds without
+	 *        approximation sets
 	 */
-	protected void update() {
-		XYSeriesCollection dataset = new XYSeriesCollection();
+	protected void display(int[] seeds, int value, double[][][] points) {
+		XYPlot plot = chart.getXYPlot();
+		XYItemRenderer renderer = plot.getRenderer();
+		int xAxis = xAxisSelection.getSelectedIndex();
+		int yAxis = yAxisSelection.getSelectedIndex();
+		
+		//suspend change events, including zoom events sent to this window,
+		//so the chart is redrawn only once
+		chart.removeChangeListener(this);
+		chart.setNotify(false);
 		
-		//generate approximation set
-		for (int seedIndex : seedList.getSelectedIndices()) {
-			Accumulator accumulator = accumulators.get(seedIndex);
-			int index = 0;
+		try {
+			dataset.removeAllSeries();
 			
-			if (!accumulator.keySet().contains("Approximation Set")) {
-				continue;
+			//generate approximation set
+			for (int i=0; i<seeds.length; i++) {
+				if (points[i] == null) {
+					continue;
+				}
+				
+				XYSeries series = new XYSeries(
+						localization.getString("text.seed", seeds[i]+1),
+						false, true);
+					
+				for (double[] point : points[i]) {
+					series.add(point[0], point[1]);
+				}
+				
+				dataset.addSeries(series);
 			}
+			
+			//generate reference set
+			if (referenceSet != null) {
+				XYSeries series = new XYSeries(
+						localization.getString("text.referenceSet"),
+						false, true);
+					
+				for (Solution solution : referenceSet) {
+					series.add(getValue(solution, 0), getValue(solution, 1));
+				}
 				
-			while ((index < accumulator.size("NFE")-1) && 
-					((Integer)accumulator.get("NFE", index) < slider.getValue())) {
-				index++;
+				dataset.addSeries(series);
+			}
+			
+			chart.setTitle(getTitle() + " @ " + value + " NFE");
+			plot.getDomainAxis().setLabel(
+					(String)xAxisSelection.getSelectedItem());
+			plot.getRangeAxis().setLabel(
+					(String)yAxisSelection.getSelectedItem());
+			
+			for (int i=0; i<dataset.getSeriesCount(); i++) {
+				Paint paint = paintHelper.get(dataset.getSeriesKey(i));
+				renderer.setSeriesPaint(i, paint);
 			}
+			
+			//set the zoom based on the user's preferences
+			plot.getRangeAxis().setAutoRange(true);
+			plot.getDomainAxis().setAutoRange(true);
+			
+			if ((initialRangeBounds == null) || (initialDomainBounds == null)) {
+				initialRangeBounds = plot.getRangeAxis().getRange();
+				initialDomainBounds = plot.getDomainAxis().getRange();
+			}
+			
+			if (useInitialBounds.isSelected()) {
+				plot.getRangeAxis().setRange(initialRangeBounds);
+				plot.getDomainAxis().setRange(initialDomainBounds);
+			} else if (useZoomBounds.isSelected()) {
+				if ((zoomRangeBounds == null) || (zoomDomainBounds == null)) {
+					zoomRangeBounds = initialRangeBounds;
+					zoomDomainBounds = initialDomainBounds;
+				}
 				
-			List<?> list = (List<?>)accumulator.get("Approximation Set", index);
-			XYSeries series = new XYSeries(
-					localization.getString("text.seed", seedIndex+1),
-					false, true);
+				plot.getRangeAxis().setRange(zoomRangeBounds);
+				plot.getDomainAxis().setRange(zoomDomainBounds);
+			} else if (useReferenceSetBounds.isSelected()) {
+				if (referenceRangeBounds.getLength() > 0.0) {
+					plot.getRangeAxis().setRange(referenceRangeBounds);
+				}
 				
-			for (Object object : list) {
-				Solution solution = (Solution)object;
-				series.add(getValue(solution, 0), getValue(solution, 1));
+				if (referenceDomainBounds.getLength() > 0.0) {
+					plot.getDomainAxis().setRange(referenceDomainBounds);
+				}
 			}
-			
-			dataset.addSeries(series);
+		} finally {
+			chart.setNotify(true);
+			chart.addChangeListener(this);
 		}
 		
-		//generate reference set
-		if (referenceSet != null) {
-			XYSeries series = new XYSeries(
-					localization.getString("text.referenceSet"),
-					false, true);
-				
-			for (Solution solution : referenceSet) {
-				series.add(getValue(solution, 0), getValue(solution, 1));
+		if (playback.isRunning()) {
+			int[] upcoming = new int[PLAYBACK_LOOKAHEAD];
+			
+			for (int i=0; i<upcoming.length; i++) {
+				upcoming[i] = Math.min(value + (i+1)*getPlaybackStep(), 
+						slider.getMaximum());
 			}
 			
-			dataset.addSeries(series);
+			frames.prefetchAhead(seeds, upcoming, xAxis, yAxis);
+		} else {
+			frames.prefetch(seeds, value, xAxis, yAxis);
+		}
+	}
+	
+	/**
+	 * Starts the playback from the current slider position, or from the start
+	 * of the NFE range if the slider is at the end.
+	 */
+	protected void play() {
+		if (slider.getValue() >= slider.getMaximum()) {
+			slider.setValue(slider.getMinimum());
 		}
 		
-		JFreeChart chart = ChartFactory.createScatterPlot(
-				getTitle() + " @ " + slider.getValue() + " NFE", 
-				(String)xAxisSelection.getSelectedItem(),
-				(String)yAxisSelection.getSelectedItem(), 
-				dataset, 
-				PlotOrientation.VERTICAL, 
-				true, 
-				true,
-				false);
-		
-		//set the renderer to only display shapes
-		XYPlot plot = chart.getXYPlot();
-		XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(false, 
-				true);
+		playback.start();
+		playAction.putValue(Action.NAME, 
+				localization.getString("action.pause.name"));
+	}
+	
+	/**
+	 * Pauses the playback at the current slider position.
+	 */
+	protected void pause() {
+		playback.stop();
+		playAction.putValue(Action.NAME, 
+				localization.getString("action.play.name"));
+	}
+	
+	/**
+	 * Advances the slider to the next frame of the playback, pausing at the end
+	 * of the NFE range.  Moving the slider updates the display, which shows the
+	 * frames prefetched by the previous update.
+	 */
+	protected void nextFrame() {
+		int value = slider.getValue() + getPlaybackStep();
 		
-		for (int i=0; i<dataset.getSeriesCount(); i++) {
-			Paint paint = paintHelper.get(dataset.getSeriesKey(i));
-			renderer.setSeriesPaint(i, paint);
+		if (value >= slider.getMaximum()) {
+			pause();
+			value = slider.getMaximum();
 		}
 		
-		plot.setRenderer(renderer);
-		
-		//set the zoom based on the user's preferences
-		if ((initialRangeBounds == null) || (initialDomainBounds == null)) {
-			initialRangeBounds = plot.getRangeAxis().getRange();
-			initialDomainBounds = plot.getDomainAxis().getRange();
+		slider.setValue(value);
+	}
+	
+	/**
+	 * Returns the NFE advanced by each frame of the playback, chosen so the
+	 * whole NFE range is played back in {@value #PLAYBACK_FRAMES} frames.
+	 * 
+	 * @return the NFE advanced by each frame of the playback
+	 */
+	protected int getPlaybackStep() {
+		return Math.max(1, 
+				(slider.getMaximum() - slider.getMinimum()) / PLAYBACK_FRAMES);
+	}
+	
+	@Override
+	public void dispose() {
+		playback.stop();
+		dragThrottle.stop();
+		super.dispose();
+	}
+
+	@Override
+	public void stateChanged(ChangeEvent e) {
+		if (e.getSource() == frameRate) {
+			playback.setDelay(1000 / (Integer)frameRate.getValue());
+			return;
 		}
 		
-		if (useInitialBounds.isSelected()) {
-			plot.getRangeAxis().setRange(initialRangeBounds);
-			plot.getDomainAxis().setRange(initialDomainBounds);
-		} else if (useZoomBounds.isSelected()) {
-			if ((zoomRangeBounds == null) || (zoomDomainBounds == null)) {
-				zoomRangeBounds = initialRangeBounds;
-				zoomDomainBounds = initialDomainBounds;
-			}
-			
-			plot.getRangeAxis().setRange(zoomRangeBounds);
-			plot.getDomainAxis().setRange(zoomDomainBounds);
-		} else if (useReferenceSetBounds.isSelected()) {
-			if (referenceRangeBounds.getLength() > 0.0) {
-				plot.getRangeAxis().setRange(referenceRangeBounds);
+		if (slider.getValueIsAdjusting()) {
+			//dragging the slider takes over from the playback
+			if (playback.isRunning()) {
+				pause();
 			}
 			
-			if (referenceDomainBounds.getLength() > 0.0) {
-				plot.getDomainAxis().setRange(referenceDomainBounds);
+			//render the first position at once and later ones when throttled
+			if (!dragThrottle.isRunning()) {
+				dragThrottle.start();
+				render();
 			}
+		} else {
+			//show the exact frame when the slider is released
+			dragThrottle.stop();
+			update();
 		}
-		
-		//register with the chart to receive zoom events
-		chart.addChangeListener(this);
-		
-		chartContainer.removeAll();
-		chartContainer.add(new ChartPanel(chart), BorderLayout.CENTER);
-		chartContainer.revalidate();
-		chartContainer.repaint();
-	}
-
-	@Override
-	public void stateChanged(ChangeEvent e) {
-		update();
 	}
 
 	@Override
@@ -0,0 +1,191 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.NondominatedPopulation;
+import org.moeaframework.core.Solution;
+
+/** Caches the merged final approximation sets of the seeds of a result key. An entry is created
+ * the first time the merged set of a (key, metric, &epsilon;) is requested and is then updated one
+ * seed at a time with {@link SkylineMerger}, so adding a seed only costs merging that seed's final
+ * set into the archive. Like {@link QuantileCache}, each entry remembers which seeds it contains, so
+ * a seed is never merged twice. */
+public class ArchiveCache {
+
+	/** The entries of each result key. */
+	private final ConcurrentMap<ResultKey, List<Entry>> entries;
+
+	/** Constructs a new, empty archive cache. */
+	public ArchiveCache() {
+		super();
+
+		entries= new ConcurrentHashMap<>();
+	}
+
+	/** Returns the entry for the specified key, metric and &epsilon;, creating an empty entry if
+	 * necessary. A new entry must be brought up to date with {@link Entry#add(Accumulator)} for
+	 * every seed already stored under the key.
+	 *
+	 * @param key     the result key
+	 * @param metric  the metric storing the approximation sets
+	 * @param epsilon the &epsilon; of the merged archive
+	 * @return the entry for the key, metric and &epsilon; */
+	public Entry getEntry(ResultKey key, String metric, double epsilon) {
+		List<Entry> list= entries.get(key);
+
+		if (list == null) {
+			List<Entry> newList= new CopyOnWriteArrayList<>();
+			list= entries.putIfAbsent(key, newList);
+
+			if (list == null) {
+				list= newList;
+			}
+		}
+
+		synchronized (list) {
+			for (Entry entry : list) {
+				if (entry.metric.equals(metric) && entry.epsilon == epsilon) { return entry; }
+			}
+
+			Entry entry= new Entry(metric, epsilon);
+			list.add(entry);
+			return entry;
+		}
+	}
+
+	/** Returns the entries of the specified key.
+	 *
+	 * @param key the result key
+	 * @return the entries of the key */
+	public List<Entry> getEntries(ResultKey key) {
+		List<Entry> list= entries.get(key);
+		return list == null ? Collections.<Entry> emptyList() : list;
+	}
+
+	/** Removes all entries. */
+	public void clear() {
+		entries.clear();
+	}
+
+	/** Returns the final approximation set stored in a seed.
+	 *
+	 * @param accumulator the seed
+	 * @param metric      the metric storing the approximation sets
+	 * @return the final approximation set of the seed; or an empty list if the seed does not
+	 *         contain the metric */
+	public static List<Solution> getFinalSet(Accumulator accumulator, String metric) {
+		List<Solution> solutions= new ArrayList<>();
+
+		if (accumulator.keySet().contains(metric)) {
+			List<?> list= (List<?>) accumulator.get(metric, accumulator.size(metric) - 1);
+
+			for (Object object : list) {
+				solutions.add((Solution) object);
+			}
+		}
+
+		return solutions;
+	}
+
+	/** Returns the objectives of the solutions in an archive.
+	 *
+	 * @param archive the archive
+	 * @return the objectives of each solution in the archive */
+	public static double[][] getObjectives(NondominatedPopulation archive) {
+		double[][] objectives= new double[archive.size()][];
+
+		for (int i= 0; i < archive.size(); i++ ) {
+			objectives[i]= archive.get(i).getObjectives();
+		}
+
+		return objectives;
+	}
+
+	/** The merged final approximation sets of the seeds of one result key. */
+	public static class Entry {
+
+		/** The metric storing the approximation sets. */
+		private final String metric;
+
+		/** The &epsilon; of the merged archive. */
+		private final double epsilon;
+
+		/** The seeds merged into this entry, by identity. */
+		private final Set<Accumulator> seeds;
+
+		/** The merged archive, which is replaced as seeds are merged. */
+		private NondominatedPopulation archive;
+
+		/** The objectives of the merged archive; or {@code null} if not computed since the last
+		 * seed was merged. */
+		private double[][] objectives;
+
+		/** Constructs a new, empty entry.
+		 *
+		 * @param metric  the metric storing the approximation sets
+		 * @param epsilon the &epsilon; of the merged archive */
+		private Entry(String metric, double epsilon) {
+			super();
+			this.metric= metric;
+			this.epsilon= epsilon;
+
+			seeds= Collections.newSetFromMap(new IdentityHashMap<Accumulator, Boolean>());
+			archive= new EpsilonBoxDominanceArchive(epsilon);
+		}
+
+		/** Merges the final approximation set of a seed into this entry, unless the seed was
+		 * merged before.
+		 *
+		 * @param accumulator the seed */
+		public synchronized void add(Accumulator accumulator) {
+			if (!seeds.add(accumulator)) { return; }
+
+			List<Solution> solutions= getFinalSet(accumulator, metric);
+
+			if (!solutions.isEmpty()) {
+				archive= SkylineMerger.merge(archive, epsilon, solutions);
+				objectives= null;
+			}
+		}
+
+		/** Returns the objectives of the solutions in the merged archive. The returned arrays are
+		 * shared between calls until another seed changes the archive, and must not be modified.
+		 *
+		 * @return the objectives of each solution in the merged archive */
+		public synchronized double[][] getObjectives() {
+			if (objectives == null) {
+				objectives= ArchiveCache.getObjectives(archive);
+			}
+
+			return objectives;
+		}
+
+	}
+
+}
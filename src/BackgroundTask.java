@@ -0,0 +1,137 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/** A long-running task, such as saving or loading results, run off the event dispatch thread
+ * while a {@link ProgressMonitor} shows its progress. Pressing cancel in the monitor cancels the
+ * task, which stops at its next progress check. Errors are reported through the controller. */
+public abstract class BackgroundTask extends SwingWorker<Void, Void> implements TaskProgress {
+
+	/** The interval, in milliseconds, at which the monitor is checked for cancellation. */
+	private static final int CANCEL_POLL_INTERVAL= 100;
+
+	/** The controller reporting errors. */
+	private final Controller controller;
+
+	/** The monitor showing the progress of this task. */
+	private final ProgressMonitor monitor;
+
+	/** The timer checking the monitor for cancellation. */
+	private final Timer timer;
+
+	/** Constructs a new background task.
+	 *
+	 * @param parent     the component over which the progress monitor is shown
+	 * @param controller the controller reporting errors
+	 * @param message    the message shown in the progress monitor */
+	public BackgroundTask(Component parent, Controller controller, String message) {
+		super();
+		this.controller= controller;
+
+		monitor= new ProgressMonitor(parent, message, null, 0, 100);
+
+		timer= new Timer(CANCEL_POLL_INTERVAL, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (monitor.isCanceled()) {
+					cancel(false);
+				}
+			}
+
+		});
+
+		addPropertyChangeListener(new PropertyChangeListener() {
+
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+				if ("progress".equals(event.getPropertyName())) {
+					monitor.setProgress((Integer) event.getNewValue());
+				}
+			}
+
+		});
+	}
+
+	/** Performs the work of this task. Implementations should report progress and check for
+	 * cancellation through the given {@code TaskProgress}.
+	 *
+	 * @param progress the progress of this task
+	 * @throws Exception if an error occurred */
+	protected abstract void run(TaskProgress progress) throws Exception;
+
+	/** Invoked on the event dispatch thread after this task completes successfully. The default
+	 * implementation does nothing. */
+	protected void succeeded() {
+		// do nothing
+	}
+
+	/** Starts this task in the background. This method must be invoked on the event dispatch
+	 * thread. */
+	public void start() {
+		timer.start();
+		execute();
+	}
+
+	@Override
+	protected Void doInBackground() throws Exception {
+		run(this);
+		return null;
+	}
+
+	@Override
+	public void progressChanged(long completed, long total) {
+		if (total > 0) {
+			setProgress((int) Math.min(100, 100 * completed / total));
+		}
+	}
+
+	@Override
+	protected void done() {
+		timer.stop();
+		monitor.close();
+
+		try {
+			get();
+			succeeded();
+		} catch (CancellationException e) {
+			// cancelled by the user
+		} catch (InterruptedException e) {
+			// cancelled by the user
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof InterruptedIOException)) {
+				controller.handleException(e.getCause() instanceof Exception ?
+					(Exception) e.getCause() : e);
+			}
+		}
+	}
+
+}
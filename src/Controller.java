@@ -17,20 +17,30 @@
  */
 package org.moeaframework.analysis.diagnostics;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.PrintStream;
 import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.swing.JOptionPane;
@@ -42,10 +52,8 @@ import org.moeaframework.Executor;
 import org.moeaframework.Instrumenter;
 import org.moeaframework.analysis.collector.Accumulator;
 import org.moeaframework.analysis.sensitivity.EpsilonHelper;
-import org.moeaframework.core.EpsilonBoxDominanceArchive;
 import org.moeaframework.core.NondominatedPopulation;
 import org.moeaframework.core.Problem;
-import org.moeaframework.core.Solution;
 import org.moeaframework.core.spi.ProblemFactory;
 import org.moeaframework.util.progress.ProgressEvent;
 import org.moeaframework.util.progress.ProgressListener;
@@ -57,12 +65,46 @@ public class Controller {
 	/** The collection of listeners which are notified when the controller state changes. */
 	private final EventListenerSupport<ControllerListener> listeners;
 
-	/** The collection of all results. */
-	private final Map<ResultKey, List<Accumulator>> accumulators;
+	/** The collection of all results. Readers never block: the map is concurrent and each list is
+	 * copy-on-write, so iteration always sees a consistent snapshot of the seeds for a key. */
+	private final ConcurrentMap<ResultKey, List<Accumulator>> accumulators;
+
+	/** The multi-resolution traces of each stored accumulator, keyed by accumulator identity and
+	 * then by metric. */
+	private final ConcurrentMap<Accumulator, Map<String, TracePyramid>> traces;
+
+	/** The bucketed quantiles of the metrics shown by line plots, updated as seeds are added. */
+	private final QuantileCache quantiles;
+
+	/** The merged final approximation sets shown by approximation set plots, updated as seeds are
+	 * added. */
+	private final ArchiveCache archives;
+
+	/** The seeds of loaded session files that have not yet been read, grouped by result key. A key
+	 * is read in full the first time its results are requested. Modifications are guarded by this
+	 * map's monitor. */
+	private final ConcurrentMap<ResultKey, List<PendingBlock>> pending;
+
+	/** The locks serializing the reads of the pending seeds of each key, so different keys are
+	 * read concurrently while each key is read only once. */
+	private final ConcurrentMap<ResultKey, Object> loadLocks;
+
+	/** The readers of the loaded session files, which remain open until this controller is
+	 * cleared. */
+	private final List<SessionReader> readers;
 
 	/** The last accumulator to be generated; or {@code null} if no last accumulator exists or has
 	 * been previously cleared. */
-	private Accumulator lastAccumulator;
+	private volatile Accumulator lastAccumulator;
+
+	/** The journal receiving each finished seed; or {@code null} if no journal is open. */
+	private volatile ResultJournal journal;
+
+	/** {@code true} if finished seeds are written to the journal; {@code false} otherwise. */
+	private boolean journalResults= true;
+
+	/** The codec used to compress saved sessions. */
+	private SessionFormat.Codec sessionCodec= SessionFormat.Codec.DEFLATE;
 
 	/** {@code true} if the last run's trace should be drawn separately; {@code false} otherwise. */
 	private boolean showLastTrace= false;
@@ -134,6 +176,10 @@ public class Controller {
 	 * {@code false}. */
 	private boolean showIndividualTraces;
 
+	/** {@code true} if quantiles are aggregated in logarithmic NFE buckets; {@code false} if the
+	 * buckets have a fixed width. */
+	private boolean logarithmicBinning;
+
 	/** The executor for the current run. */
 	private Executor executor;
 
@@ -145,7 +191,13 @@ public class Controller {
 		this.frame= frame;
 
 		listeners= EventListenerSupport.create(ControllerListener.class);
-		accumulators= new HashMap<>();
+		accumulators= new ConcurrentHashMap<>();
+		traces= new ConcurrentHashMap<>();
+		quantiles= new QuantileCache();
+		archives= new ArchiveCache();
+		pending= new ConcurrentHashMap<>();
+		loadLocks= new ConcurrentHashMap<>();
+		readers= new CopyOnWriteArrayList<>();
 	}
 
 	/** Adds the specified listener to receive all subsequent controller events.
@@ -214,18 +266,62 @@ public class Controller {
 	 *                    results
 	 * @param accumulator the accumulator storing the results */
 	public void add(ResultKey key, Accumulator accumulator) {
-		synchronized (accumulators) {
-			if (!accumulators.containsKey(key)) {
-				accumulators.put(key, new CopyOnWriteArrayList<Accumulator>());
+		traces.put(accumulator, TracePyramid.createAll(accumulator));
+		getList(key).add(accumulator);
+		updateQuantiles(key, accumulator);
+		updateArchives(key, accumulator);
+		lastAccumulator= accumulator;
+
+		fireModelChangedEvent();
+	}
+
+	/** Adds many results to this controller at once, appending to the existing results of each
+	 * key. A single {@code MODEL_CHANGED} event is fired once all results are added.
+	 *
+	 * @param results the results to add */
+	public void addAll(Map<ResultKey, List<Accumulator>> results) {
+		if (results.isEmpty()) { return; }
+
+		for (Map.Entry<ResultKey, List<Accumulator>> entry : results.entrySet()) {
+			for (Accumulator accumulator : entry.getValue()) {
+				traces.put(accumulator, TracePyramid.createAll(accumulator));
 			}
 
-			accumulators.get(key).add(accumulator);
-			lastAccumulator= accumulator;
+			if (!entry.getValue().isEmpty()) {
+				getList(entry.getKey()).addAll(entry.getValue());
+
+				for (Accumulator accumulator : entry.getValue()) {
+					updateQuantiles(entry.getKey(), accumulator);
+					updateArchives(entry.getKey(), accumulator);
+				}
+
+				lastAccumulator= entry.getValue().get(entry.getValue().size() - 1);
+			}
 		}
 
 		fireModelChangedEvent();
 	}
 
+	/** Returns the modifiable list of results associated with the specified key, creating it if
+	 * necessary.
+	 *
+	 * @param key the result key
+	 * @return the modifiable list of results associated with the key */
+	private List<Accumulator> getList(ResultKey key) {
+		List<Accumulator> list= accumulators.get(key);
+
+		if (list == null) {
+			List<Accumulator> newList= new CopyOnWriteArrayList<>();
+			list= accumulators.putIfAbsent(key, newList);
+
+			if (list == null) {
+				list= newList;
+			}
+		}
+
+		return list;
+	}
+
 	/** Adds a new result to this controller. This method invokes
 	 * {@link #add(ResultKey, Accumulator)}.
 	 *
@@ -239,98 +335,580 @@ public class Controller {
 
 	/** Clears all results from this collector. A {@code MODEL_CHANGED} event is fired. */
 	public void clear() {
-		if (accumulators.isEmpty()) { return; }
+		if (accumulators.isEmpty() && pending.isEmpty()) { return; }
+
+		synchronized (pending) {
+			pending.clear();
 
-		synchronized (accumulators) {
-			accumulators.clear();
-			frame.getPaintHelper().clear();
-			lastAccumulator= null;
+			for (SessionReader reader : readers) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					reportException(e);
+				}
+			}
+
+			readers.clear();
+		}
+
+		accumulators.clear();
+		traces.clear();
+		quantiles.clear();
+		archives.clear();
+		frame.getPaintHelper().clear();
+
+		ResultJournal journal= this.journal;
+
+		if (journal != null) {
+			journal.clear();
 		}
 
+		lastAccumulator= null;
+
 		fireModelChangedEvent();
 	}
 
 	/** Returns an unmodifiable collection containing the results associated with the specified key.
+	 * If the key belongs to a loaded session file whose seeds have not yet been read, they are read
+	 * from the file first.
 	 *
 	 * @param key the result key
 	 * @return an unmodifiable collection containing the results associated with the specified
 	 *         key */
 	public List<Accumulator> get(ResultKey key) {
-		synchronized (accumulators) {
-			return Collections.unmodifiableList(accumulators.get(key));
+		if (pending.containsKey(key)) {
+			load(key);
 		}
+
+		List<Accumulator> list= accumulators.get(key);
+
+		if (list == null) { return Collections.emptyList(); }
+
+		return Collections.unmodifiableList(list);
 	}
 
-	/** Returns an unmodifiable set of result keys contained in this controller.
+	/** Returns the number of seeds associated with the specified key. Seeds of loaded session
+	 * files are counted without reading them.
 	 *
-	 * @return an unmodifiable set of result keys contained in this controller */
-	public Set<ResultKey> getKeys() {
-		synchronized (accumulators) {
-			return Collections.unmodifiableSet(accumulators.keySet());
+	 * @param key the result key
+	 * @return the number of seeds associated with the key */
+	public int getSeedCount(ResultKey key) {
+		List<Accumulator> list= accumulators.get(key);
+		List<PendingBlock> blocks= pending.get(key);
+
+		return (list == null ? 0 : list.size()) + (blocks == null ? 0 : blocks.size());
+	}
+
+	/** Returns the metrics recorded by any seed associated with the specified key. Seeds of loaded
+	 * session files are inspected through the session index without reading them.
+	 *
+	 * @param key the result key
+	 * @return the metrics recorded by any seed associated with the key */
+	public Set<String> getMetrics(ResultKey key) {
+		Set<String> metrics= new HashSet<>();
+		List<Accumulator> list= accumulators.get(key);
+		List<PendingBlock> blocks= pending.get(key);
+
+		if (list != null) {
+			for (Accumulator accumulator : list) {
+				metrics.addAll(accumulator.keySet());
+			}
+		}
+
+		if (blocks != null) {
+			for (PendingBlock block : blocks) {
+				metrics.addAll(block.getBlock().getMetrics());
+			}
+		}
+
+		return metrics;
+	}
+
+	/** Reads the pending seeds of the specified key from their session files, as described by
+	 * {@link #read(ResultKey)}. If the seeds cannot be read, they remain pending, so they are
+	 * neither lost nor dropped from the next save, and the error is reported on the event
+	 * dispatch thread.
+	 *
+	 * @param key the result key */
+	private void load(ResultKey key) {
+		try {
+			read(key);
+		} catch (IOException e) {
+			reportException(e);
 		}
 	}
 
+	/** Reads the pending seeds of the specified key from their session files. The seeds are placed
+	 * ahead of any results added since the file was loaded. No event is fired since the contents of
+	 * this controller do not change. Only reads of the same key are serialized, so different keys
+	 * are read concurrently, and the pending seeds are only removed once read.
+	 *
+	 * @param key the result key
+	 * @throws IOException if an I/O error occurred while reading the seeds */
+	private void read(ResultKey key) throws IOException {
+		Object lock= loadLocks.get(key);
+
+		if (lock == null) {
+			Object newLock= new Object();
+			lock= loadLocks.putIfAbsent(key, newLock);
+
+			if (lock == null) {
+				lock= newLock;
+			}
+		}
+
+		synchronized (lock) {
+			List<PendingBlock> blocks= pending.get(key);
+
+			if (blocks == null) { return; }
+
+			List<Accumulator> loaded= new ArrayList<>();
+
+			try {
+				// blocks from the same file are read in parallel
+				for (int i= 0, j= 0; i < blocks.size(); i= j) {
+					SessionReader reader= blocks.get(i).getReader();
+					List<SessionFormat.Block> run= new ArrayList<>();
+
+					for (j= i; j < blocks.size() && blocks.get(j).getReader() == reader; j++ ) {
+						run.add(blocks.get(j).getBlock());
+					}
+
+					loaded.addAll(reader.read(run));
+				}
+			} catch (IOException e) {
+				// reading fails once the files are closed by clear(), which is not an error
+				if (pending.get(key) == null) { return; }
+
+				throw e;
+			}
+
+			for (Accumulator accumulator : loaded) {
+				traces.put(accumulator, TracePyramid.createAll(accumulator));
+			}
+
+			synchronized (pending) {
+				List<PendingBlock> current= pending.get(key);
+
+				// the controller was cleared while reading
+				if (current == null) { return; }
+
+				getList(key).addAll(0, loaded);
+
+				// files loaded while reading append their blocks after the ones read
+				if (current.size() > blocks.size()) {
+					pending.put(key, new ArrayList<>(current.subList(blocks.size(),
+						current.size())));
+				} else {
+					pending.remove(key);
+				}
+			}
+		}
+	}
+
+	/** Reads all pending seeds from their session files.
+	 *
+	 * @throws IOException if an I/O error occurred while reading the seeds */
+	private void loadAll() throws IOException {
+		for (ResultKey key : new ArrayList<>(pending.keySet())) {
+			read(key);
+		}
+	}
+
+	/** Visits each seed associated with the specified key, in the same order as
+	 * {@link #get(ResultKey)}. Unlike {@code get}, seeds of loaded session files that have not yet
+	 * been read are read one at a time and discarded after being visited, so visiting every key
+	 * needs memory for only one seed at a time.
+	 *
+	 * @param key     the result key
+	 * @param visitor the visitor receiving each seed
+	 * @throws IOException if an I/O error occurred while reading a seed or visiting it */
+	public void visit(ResultKey key, SeedVisitor visitor) throws IOException {
+		List<Accumulator> list;
+		List<PendingBlock> blocks;
+
+		synchronized (pending) {
+			list= accumulators.get(key);
+			list= list == null ? Collections.<Accumulator> emptyList() : new ArrayList<>(list);
+			blocks= pending.get(key);
+		}
+
+		if (blocks != null) {
+			for (PendingBlock block : blocks) {
+				visitor.visit(key, block.getReader().read(block.getBlock()));
+			}
+		}
+
+		for (Accumulator accumulator : list) {
+			visitor.visit(key, accumulator);
+		}
+	}
+
+	/** Returns the multi-resolution trace of a metric stored in the specified accumulator. Traces
+	 * are computed when the accumulator is added to this controller, so this method is normally a
+	 * lookup.
+	 *
+	 * @param accumulator the accumulator
+	 * @param metric      the metric
+	 * @return the multi-resolution trace of the metric; or {@code null} if the accumulator does not
+	 *         contain the metric or the metric is not numeric */
+	public TracePyramid getTrace(Accumulator accumulator, String metric) {
+		Map<String, TracePyramid> map= traces.get(accumulator);
+
+		if (map == null) {
+			map= TracePyramid.createAll(accumulator);
+			Map<String, TracePyramid> existing= traces.putIfAbsent(accumulator, map);
+
+			if (existing != null) {
+				map= existing;
+			}
+		}
+
+		return map.get(metric);
+	}
+
+	/** Adds a new seed to the cached quantiles of its key. Only metrics whose quantiles have been
+	 * requested are updated.
+	 *
+	 * @param key         the result key
+	 * @param accumulator the seed */
+	private void updateQuantiles(ResultKey key, Accumulator accumulator) {
+		for (QuantileCache.Entry entry : quantiles.getEntries(key)) {
+			entry.add(accumulator, getTrace(accumulator, entry.getMetric()));
+		}
+	}
+
+	/** Returns the quantiles of a metric across the seeds of the specified key. The NFE buckets
+	 * are chosen from the NFE range and sampling density of the stored traces and the plot width,
+	 * as described in {@link NFEBinning#choose(int, int, int, int, boolean)}. The quantiles are
+	 * cached and updated as seeds are added, so only seeds added since the last request need to be
+	 * processed, and the cache is only rebuilt when the chosen buckets change.
+	 *
+	 * @param key         the result key
+	 * @param metric      the metric
+	 * @param width       the plot width in pixels
+	 * @param logarithmic {@code true} to use logarithmic NFE buckets; {@code false} to use
+	 *                    buckets of a fixed width
+	 * @return the quantiles of the metric across the seeds of the key */
+	public QuantileCache.Quantiles getQuantiles(ResultKey key, String metric, int width,
+		boolean logarithmic) {
+		if (pending.containsKey(key)) {
+			load(key);
+		}
+
+		List<Accumulator> list= accumulators.get(key);
+		int minimumNFE= Integer.MAX_VALUE;
+		int maximumNFE= 0;
+		long samples= 0;
+		int seeds= 0;
+
+		if (list != null) {
+			for (Accumulator accumulator : list) {
+				TracePyramid trace= getTrace(accumulator, metric);
+
+				if (trace != null && trace.size() > 0) {
+					minimumNFE= Math.min(minimumNFE, trace.getMinimumNFE());
+					maximumNFE= Math.max(maximumNFE, trace.getMaximumNFE());
+					samples+= trace.size();
+					seeds++ ;
+				}
+			}
+		}
+
+		NFEBinning binning= seeds == 0 ? NFEBinning.linear(1) : NFEBinning.choose(minimumNFE,
+			maximumNFE, (int) (samples / seeds), width, logarithmic);
+
+		// the entry is registered before the seeds are read, so a seed added concurrently either
+		// appears in the list or reaches the entry through updateQuantiles
+		QuantileCache.Entry entry= quantiles.getEntry(key, metric, binning);
+
+		if (list != null) {
+			for (Accumulator accumulator : list) {
+				entry.add(accumulator, getTrace(accumulator, metric));
+			}
+		}
+
+		return entry.getQuantiles();
+	}
+
+	/** Merges a new seed into the cached approximation sets of its key. Only approximation sets
+	 * that have been requested are updated.
+	 *
+	 * @param key         the result key
+	 * @param accumulator the seed */
+	private void updateArchives(ResultKey key, Accumulator accumulator) {
+		for (ArchiveCache.Entry entry : archives.getEntries(key)) {
+			entry.add(accumulator);
+		}
+	}
+
+	/** Returns the objectives of the merged final approximation sets of the seeds of the specified
+	 * key. The merged archive is cached and updated as seeds are added, so only seeds added since
+	 * the last request need to be merged, and the cache is only dropped when this controller is
+	 * cleared.
+	 *
+	 * @param key     the result key
+	 * @param metric  the metric storing the approximation sets
+	 * @param epsilon the &epsilon; of the merged archive
+	 * @return the objectives of each solution in the merged archive, which must not be
+	 *         modified */
+	public double[][] getApproximationSet(ResultKey key, String metric, double epsilon) {
+		if (pending.containsKey(key)) {
+			load(key);
+		}
+
+		// as in getQuantiles, the entry is registered before the seeds are read
+		ArchiveCache.Entry entry= archives.getEntry(key, metric, epsilon);
+		List<Accumulator> list= accumulators.get(key);
+
+		if (list != null) {
+			for (Accumulator accumulator : list) {
+				entry.add(accumulator);
+			}
+		}
+
+		return entry.getObjectives();
+	}
+
+	/** Returns an unmodifiable snapshot of the result keys contained in this controller. Keys added
+	 * after this method returns are not reflected in the returned set.
+	 *
+	 * @return an unmodifiable snapshot of the result keys contained in this controller */
+	public Set<ResultKey> getKeys() {
+		Set<ResultKey> keys= new HashSet<>(accumulators.keySet());
+		keys.addAll(pending.keySet());
+		return Collections.unmodifiableSet(keys);
+	}
+
 	/** Returns the last accumulator to be generated; or {@code null} if no last accumulator exists
 	 * or has been previously cleared.
 	 *
 	 * @return the last accumulator to be generated; or {@code null} if no last accumulator exists
 	 *         or has been previously cleared */
 	public Accumulator getLastAccumulator() {
-		synchronized (accumulators) {
-			return lastAccumulator;
-		}
+		return lastAccumulator;
 	}
 
 	/** Clears the last accumulator. Subsequent invocations of {@link #getLastAccumulator()} will
 	 * return {@code null} until a new accumulator is generated. */
 	public void clearLastAccumulator() {
-		synchronized (accumulators) {
-			lastAccumulator= null;
+		lastAccumulator= null;
+	}
+
+	/** Returns a consistent snapshot of all results stored in this controller that have been read
+	 * into memory. The snapshot only copies the per-key lists, not the accumulators, so taking it
+	 * is cheap and never blocks concurrent calls to {@link #add(ResultKey, Accumulator)}.
+	 *
+	 * @return a snapshot of all results stored in this controller that have been read into
+	 *         memory */
+	protected Map<ResultKey, List<Accumulator>> snapshot() {
+		Map<ResultKey, List<Accumulator>> snapshot= new HashMap<>();
+
+		for (Map.Entry<ResultKey, List<Accumulator>> entry : accumulators.entrySet()) {
+			snapshot.put(entry.getKey(), new ArrayList<>(entry.getValue()));
 		}
+
+		return snapshot;
 	}
 
-	/** Saves all results stored in this controller to the specified file.
+	/** Saves all results stored in this controller to the specified file. The results are written
+	 * from a snapshot, so new results may continue to arrive while the file is being written. The
+	 * file is written in the session format described by {@link SessionFormat}, one seed at a
+	 * time, and each seed is compressed with the codec returned by {@link #getSessionCodec()}.
+	 * Seeds of loaded session files that have not yet been read are copied without being
+	 * decoded.
 	 *
 	 * @param file the file to which the results are saved
 	 * @throws IOException if an I/O error occurred */
 	public void saveData(File file) throws IOException {
-		synchronized (accumulators) {
-			ObjectOutputStream oos= null;
+		saveData(file, null);
+	}
 
-			try {
-				oos= new ObjectOutputStream(new FileOutputStream(file));
-				oos.writeObject(accumulators);
-			} finally {
-				if (oos != null) {
-					oos.close();
+	/** Saves all results stored in this controller to the specified file, reporting progress after
+	 * each seed. The session is written to a temporary file that replaces the specified file only
+	 * once complete, so a cancelled or failed save leaves any existing file intact.
+	 *
+	 * @param file     the file to which the results are saved
+	 * @param progress the progress of the save; or {@code null} if progress is not reported
+	 * @throws IOException if an I/O error occurred
+	 * @throws InterruptedIOException if the save was cancelled
+	 * @see #saveData(File) */
+	public void saveData(File file, TaskProgress progress) throws IOException {
+		for (SessionReader reader : readers) {
+			if (reader.getFile().getCanonicalFile().equals(file.getCanonicalFile())) {
+				// the file is about to be replaced, so everything still in it must be read
+				loadAll();
+				readers.remove(reader);
+				reader.close();
+			}
+		}
+
+		Map<ResultKey, List<Accumulator>> snapshot;
+		Map<ResultKey, List<PendingBlock>> unread;
+
+		synchronized (pending) {
+			snapshot= snapshot();
+			unread= new HashMap<>(pending);
+		}
+
+		Set<ResultKey> keys= new TreeSet<>(snapshot.keySet());
+		keys.addAll(unread.keySet());
+
+		List<SessionFormat.Block> index= new ArrayList<>();
+		List<Object> sources= new ArrayList<>();
+
+		for (ResultKey key : keys) {
+			if (unread.containsKey(key)) {
+				for (PendingBlock block : unread.get(key)) {
+					index.add(block.getBlock().copy());
+					sources.add(block);
+				}
+			}
+
+			if (snapshot.containsKey(key)) {
+				for (Accumulator accumulator : snapshot.get(key)) {
+					index.add(new SessionFormat.Block(key, accumulator));
+					sources.add(accumulator);
 				}
 			}
 		}
+
+		File temp= File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile()
+			.getParentFile());
+
+		try {
+			try (SessionWriter writer= new SessionWriter(temp, index, sessionCodec)) {
+				for (int i= 0; i < sources.size(); i++ ) {
+					Object source= sources.get(i);
+
+					checkCancelled(progress);
+
+					if (source instanceof PendingBlock) {
+						((PendingBlock) source).copyTo(writer);
+					} else {
+						writer.write((Accumulator) source);
+					}
+
+					if (progress != null) {
+						progress.progressChanged(i + 1, sources.size());
+					}
+				}
+			}
+
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	/** Throws an exception if the task has been cancelled.
+	 *
+	 * @param progress the progress of the task; or {@code null} if the task cannot be cancelled
+	 * @throws InterruptedIOException if the task has been cancelled */
+	private static void checkCancelled(TaskProgress progress) throws InterruptedIOException {
+		if (progress != null && progress.isCancelled()) {
+			throw new InterruptedIOException("cancelled");
+		}
 	}
 
 	/** Loads all results stored in the specified file. A {@code MODEL_CHANGED} event is fired.
+	 * Both session files and files saved by earlier versions using Java serialization can be
+	 * loaded. Only the index of a session file is read; the seeds of each key are read when the
+	 * key's results are first requested, and the file remains open until this controller is
+	 * cleared.
 	 *
 	 * @param file the file containing the results to load
 	 * @throws IOException if an I/O error occurred */
 	public void loadData(File file) throws IOException {
+		loadData(file, null);
+	}
+
+	/** Loads all results stored in the specified file, reporting progress as the file is read.
+	 * Nothing is added to this controller if the load is cancelled. A single
+	 * {@code MODEL_CHANGED} event is fired once all results are added.
+	 *
+	 * @param file     the file containing the results to load
+	 * @param progress the progress of the load; or {@code null} if progress is not reported
+	 * @throws IOException if an I/O error occurred
+	 * @throws InterruptedIOException if the load was cancelled
+	 * @see #loadData(File) */
+	public void loadData(File file, TaskProgress progress) throws IOException {
+		if (!SessionReader.isSession(file)) {
+			loadLegacyData(file, progress);
+			return;
+		}
+
+		SessionReader reader= new SessionReader(file);
+		Map<ResultKey, List<PendingBlock>> loaded= new HashMap<>();
+
+		if (progress != null && progress.isCancelled()) {
+			reader.close();
+			throw new InterruptedIOException("cancelled");
+		}
+
+		for (SessionFormat.Block block : reader.getBlocks()) {
+			List<PendingBlock> blocks= loaded.get(block.getKey());
+
+			if (blocks == null) {
+				blocks= new ArrayList<>();
+				loaded.put(block.getKey(), blocks);
+			}
+
+			blocks.add(new PendingBlock(reader, block));
+		}
+
+		// pending lists are replaced rather than modified since they are read without locking
+		synchronized (pending) {
+			readers.add(reader);
+
+			for (Map.Entry<ResultKey, List<PendingBlock>> entry : loaded.entrySet()) {
+				List<PendingBlock> blocks= new ArrayList<>();
+
+				if (pending.containsKey(entry.getKey())) {
+					blocks.addAll(pending.get(entry.getKey()));
+				}
+
+				blocks.addAll(entry.getValue());
+				pending.put(entry.getKey(), blocks);
+			}
+		}
+
+		fireModelChangedEvent();
+	}
+
+	/** Loads all results stored in the specified file, which was written with Java serialization
+	 * by earlier versions of the diagnostic tool. Progress is reported as bytes are read.
+	 *
+	 * @param file     the file containing the results to load
+	 * @param progress the progress of the load; or {@code null} if progress is not reported
+	 * @throws IOException if an I/O error occurred */
+	private void loadLegacyData(File file, TaskProgress progress) throws IOException {
 		ObjectInputStream ois= null;
 
 		try {
-			ois= new ObjectInputStream(new FileInputStream(file));
+			ois= new ObjectInputStream(new BufferedInputStream(new ProgressInputStream(
+				new FileInputStream(file), file.length(), progress)));
 
 			Map<?, ?> data= (Map<?, ?>) ois.readObject();
+			Map<ResultKey, List<Accumulator>> results= new LinkedHashMap<>();
 
 			for (Map.Entry<?, ?> entry : data.entrySet()) {
-				ResultKey key= (ResultKey) entry.getKey();
-				List<?> list= (List<?>) entry.getValue();
+				List<Accumulator> list= new ArrayList<>();
 
-				for (Object element : list) {
-					add(key, (Accumulator) element);
+				for (Object element : (List<?>) entry.getValue()) {
+					list.add((Accumulator) element);
 				}
+
+				results.put((ResultKey) entry.getKey(), list);
 			}
+
+			checkCancelled(progress);
+			addAll(results);
 		} catch (StreamCorruptedException e) {
 			throw new IOException("This file does not appear to be a data " +
 				"file generated by the diagnostic tool.", e);
+		} catch (InterruptedIOException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new IOException(e);
 		} finally {
@@ -340,6 +918,126 @@ public class Controller {
 		}
 	}
 
+	/** Writes a finished seed to the journal, if one is open. This method never blocks.
+	 *
+	 * @param key         the result key of the seed
+	 * @param accumulator the accumulator storing the seed */
+	private void journal(ResultKey key, Accumulator accumulator) {
+		ResultJournal journal= this.journal;
+
+		if (journal != null) {
+			journal.append(key, accumulator);
+		}
+	}
+
+	/** Opens the default journal file if finished seeds are to be journaled. The journal is not
+	 * written until {@link #startJournal(boolean)} is called, giving the caller the chance to
+	 * recover the seeds left by an interrupted session. If the journal is in use by another
+	 * instance, journaling is disabled and a {@code STATE_CHANGED} event is fired.
+	 *
+	 * @return the number of seeds left by an interrupted session that can be recovered */
+	public int openJournal() {
+		if (!journalResults || journal != null) { return 0; }
+
+		try {
+			journal= new ResultJournal(ResultJournal.getDefaultFile(),
+				new ResultJournal.FailureHandler() {
+
+					@Override
+					public void journalFailed(final IOException e) {
+						SwingUtilities.invokeLater(new Runnable() {
+
+							@Override
+							public void run() {
+								disableJournal(e);
+							}
+
+						});
+					}
+
+				});
+
+			return journal.getRecordCount();
+		} catch (IOException e) {
+			journalResults= false;
+			fireStateChangedEvent();
+			reportException(e);
+			return 0;
+		}
+	}
+
+	/** Disables journaling after writing the journal failed. The journal is closed but kept, so
+	 * the seeds written before the failure can still be recovered, and a {@code STATE_CHANGED}
+	 * event is fired so the journal is shown as off. This method must be invoked on the event
+	 * dispatch thread.
+	 *
+	 * @param e the exception that caused the failure */
+	private void disableJournal(IOException e) {
+		if (journal == null) { return; }
+
+		closeJournal(false);
+		journalResults= false;
+		fireStateChangedEvent();
+		handleException(e);
+	}
+
+	/** Starts writing finished seeds to the journal opened by {@link #openJournal()}. If
+	 * requested, the seeds left by an interrupted session are first added to this controller and
+	 * kept in the journal; otherwise they are discarded. A single {@code MODEL_CHANGED} event is
+	 * fired once the recovered seeds are added.
+	 *
+	 * @param recover {@code true} if the seeds left by an interrupted session are recovered;
+	 *                {@code false} otherwise */
+	public void startJournal(boolean recover) {
+		ResultJournal journal= this.journal;
+
+		if (journal == null) { return; }
+
+		try {
+			if (recover) {
+				final Map<ResultKey, List<Accumulator>> results= new LinkedHashMap<>();
+
+				journal.replay(new ResultJournal.Handler() {
+
+					@Override
+					public void recordRead(ResultKey key, Accumulator accumulator) {
+						if (!results.containsKey(key)) {
+							results.put(key, new ArrayList<Accumulator>());
+						}
+
+						results.get(key).add(accumulator);
+					}
+
+				});
+
+				addAll(results);
+			}
+
+			journal.start(recover);
+		} catch (IOException e) {
+			closeJournal(false);
+			handleException(e);
+		}
+	}
+
+	/** Closes the journal, if one is open. Seeds that have not yet been written are written first.
+	 *
+	 * @param delete {@code true} if the journal file is deleted, as on a clean exit; {@code false}
+	 *               otherwise */
+	public void closeJournal(boolean delete) {
+		ResultJournal journal= this.journal;
+
+		if (journal == null) { return; }
+
+		this.journal= null;
+
+		try {
+			journal.close(delete);
+		} catch (IOException e) {
+			reportException(e);
+		}
+	}
+
 	/** Updates the progress of this controller. A {@code PROGRESS_CHANGED} event is fired.
 	 *
 	 * @param currentEvaluation the current evaluation number
@@ -415,13 +1113,8 @@ public class Controller {
 						continue;
 					}
 
-					NondominatedPopulation population= new EpsilonBoxDominanceArchive(epsilon);
-					List<?> list= (List<?>) accumulator.get("Approximation Set",
-						accumulator.size("Approximation Set") - 1);
-
-					for (Object object : list) {
-						population.add((Solution) object);
-					}
+					NondominatedPopulation population= SkylineMerger.merge(epsilon,
+						ArchiveCache.getFinalSet(accumulator, "Approximation Set"));
 
 					analyzer.add(key.getAlgorithm(), population);
 				}
@@ -453,7 +1146,8 @@ public class Controller {
 		final String algorithmName= frame.getAlgorithm();
 		final int numberOfEvaluations= frame.getNumberOfEvaluations();
 		final int numberOfSeeds= frame.getNumberOfSeeds();
-		final String param= frame.getParameterization().toString();
+		final int param= ParameterizationRegistry.getInstance().register(
+			frame.getParameterization());
 
 		// get borg parameter information
 		final double sbxDI= frame.getsbxDistributionIndex();
@@ -577,8 +1271,11 @@ public class Controller {
 								Executor executor= event.getExecutor();
 								Instrumenter instrumenter= executor.getInstrumenter();
 
-								add(algorithmName, problemName, param,
-									instrumenter.getLastAccumulator());
+								ResultKey key= new ResultKey(algorithmName, problemName, param);
+								Accumulator accumulator= instrumenter.getLastAccumulator();
+
+								add(key, accumulator);
+								journal(key, accumulator);
 							}
 						}
 
@@ -659,6 +1356,45 @@ public class Controller {
 		fireViewChangedEvent();
 	}
 
+	/** Returns {@code true} if finished seeds are written to the journal; {@code false} otherwise.
+	 *
+	 * @return {@code true} if finished seeds are written to the journal; {@code false} otherwise */
+	public boolean getJournalResults() {
+		return journalResults;
+	}
+
+	/** Sets whether finished seeds are written to the journal. Enabling the journal starts a new,
+	 * empty journal; disabling it deletes the journal file. A {@code STATE_CHANGED} event is fired.
+	 *
+	 * @param journalResults {@code true} if finished seeds are written to the journal;
+	 *                       {@code false} otherwise */
+	public void setJournalResults(boolean journalResults) {
+		this.journalResults= journalResults;
+
+		if (journalResults) {
+			openJournal();
+			startJournal(false);
+		} else {
+			closeJournal(true);
+		}
+
+		fireStateChangedEvent();
+	}
+
+	/** Returns the codec used to compress saved sessions.
+	 *
+	 * @return the codec used to compress saved sessions */
+	public SessionFormat.Codec getSessionCodec() {
+		return sessionCodec;
+	}
+
+	/** Sets the codec used to compress saved sessions.
+	 *
+	 * @param sessionCodec the codec used to compress saved sessions */
+	public void setSessionCodec(SessionFormat.Codec sessionCodec) {
+		this.sessionCodec= sessionCodec;
+	}
+
 	/** Returns {@code true} if the hypervolume indicator collector is included; {@code false}
 	 * otherwise.
 	 *
@@ -945,6 +1681,28 @@ public class Controller {
 		}
 	}
 
+	/** Returns {@code true} if quantiles are aggregated in logarithmic NFE buckets; {@code false}
+	 * if the buckets have a fixed width.
+	 *
+	 * @return {@code true} if quantiles are aggregated in logarithmic NFE buckets; {@code false}
+	 *         if the buckets have a fixed width */
+	public boolean getLogarithmicBinning() {
+		return logarithmicBinning;
+	}
+
+	/** Set to {@code true} to aggregate quantiles in logarithmic NFE buckets; {@code false} to use
+	 * buckets of a fixed width.
+	 *
+	 * @param logarithmicBinning {@code true} to aggregate quantiles in logarithmic NFE buckets;
+	 *                           {@code false} to use buckets of a fixed width */
+	public void setLogarithmicBinning(boolean logarithmicBinning) {
+		if (this.logarithmicBinning != logarithmicBinning) {
+			this.logarithmicBinning= logarithmicBinning;
+
+			fireViewChangedEvent();
+		}
+	}
+
 	/** Set to {@code true} to show individual traces; {@code false} to show quantiles.
 	 *
 	 * @param showIndividualTraces {@code true} to show individual traces; {@code false} to show
@@ -954,6 +1712,21 @@ public class Controller {
 		frame.updateParameterizationPlot();
 	}
 
+	/** Handles an exception on the event dispatch thread, as by {@link #handleException(Exception)}.
+	 * This method may be invoked on any thread.
+	 *
+	 * @param e the exception */
+	protected void reportException(final Exception e) {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+				handleException(e);
+			}
+
+		});
+	}
+
 	/** Handles an exception, possibly displaying a dialog box containing details of the exception.
 	 *
 	 * @param e the exception */
@@ -973,4 +1746,122 @@ public class Controller {
 			JOptionPane.ERROR_MESSAGE);
 	}
 
+	/** Receives the seeds visited by {@link Controller#visit(ResultKey, SeedVisitor)}. */
+	public interface SeedVisitor {
+
+		/** Invoked for each visited seed.
+		 *
+		 * @param key         the result key of the seed
+		 * @param accumulator the accumulator storing the seed's results
+		 * @throws IOException if an I/O error occurred */
+		public void visit(ResultKey key, Accumulator accumulator) throws IOException;
+
+	}
+
+	/** A seed of a loaded session file that has not yet been read. */
+	private static class PendingBlock {
+
+		/** The reader of the session file containing the seed. */
+		private final SessionReader reader;
+
+		/** The index entry of the seed. */
+		private final SessionFormat.Block block;
+
+		/** Constructs a new pending seed.
+		 *
+		 * @param reader the reader of the session file containing the seed
+		 * @param block  the index entry of the seed */
+		public PendingBlock(SessionReader reader, SessionFormat.Block block) {
+			super();
+			this.reader= reader;
+			this.block= block;
+		}
+
+		/** Returns the reader of the session file containing the seed.
+		 *
+		 * @return the reader of the session file containing the seed */
+		public SessionReader getReader() {
+			return reader;
+		}
+
+		/** Returns the index entry of the seed.
+		 *
+		 * @return the index entry of the seed */
+		public SessionFormat.Block getBlock() {
+			return block;
+		}
+
+		/** Copies the seed to another session file without decoding it.
+		 *
+		 * @param writer the writer of the other session file
+		 * @throws IOException if an I/O error occurred */
+		public void copyTo(SessionWriter writer) throws IOException {
+			reader.copy(block, writer);
+		}
+
+	}
+
+	/** An input stream reporting the number of bytes read and stopping with an
+	 * {@link InterruptedIOException} once the task is cancelled. */
+	private static class ProgressInputStream extends FilterInputStream {
+
+		/** The total number of bytes in the stream. */
+		private final long length;
+
+		/** The progress of the task reading the stream; or {@code null} if progress is not
+		 * reported. */
+		private final TaskProgress progress;
+
+		/** The number of bytes read so far. */
+		private long count;
+
+		/** Constructs a new input stream reporting its progress.
+		 *
+		 * @param in       the underlying input stream
+		 * @param length   the total number of bytes in the stream
+		 * @param progress the progress of the task reading the stream; or {@code null} if progress
+		 *                 is not reported */
+		public ProgressInputStream(InputStream in, long length, TaskProgress progress) {
+			super(in);
+			this.length= length;
+			this.progress= progress;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b= super.read();
+
+			if (b >= 0) {
+				update(1);
+			}
+
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n= super.read(b, off, len);
+
+			if (n > 0) {
+				update(n);
+			}
+
+			return n;
+		}
+
+		/** Records the bytes read and reports the progress.
+		 *
+		 * @param n the number of bytes read
+		 * @throws InterruptedIOException if the task has been cancelled */
+		private void update(int n) throws InterruptedIOException {
+			count+= n;
+			checkCancelled(progress);
+
+			if (progress != null) {
+				progress.progressChanged(count, length);
+			}
+		}
+
+	}
+
 }
@@ -48,6 +48,7 @@ import javax.swing.JList;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JProgressBar;
@@ -63,7 +64,6 @@ import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.table.AbstractTableModel;
 
-import org.moeaframework.analysis.collector.Accumulator;
 import org.moeaframework.core.Settings;
 import org.moeaframework.util.Localization;
 
@@ -201,6 +201,38 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 	/** Maintains a mapping from series key to paints displayed in the plot. */
 	private PaintHelper paintHelper;
 
+	/** Coalesces the refreshes of this window and its plots requested by controller events. */
+	private RedrawScheduler redrawScheduler;
+
+	/** Refreshes the result table and metric list, or clears this window once the controller is
+	 * empty. */
+	private final Runnable modelTask= new Runnable() {
+
+		@Override
+		public void run() {
+			if (controller.getKeys().isEmpty()) {
+				clear();
+			} else {
+				try {
+					updateModel();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+	};
+
+	/** Rebuilds the chart layout for the selected metrics. */
+	private final Runnable layoutTask= new Runnable() {
+
+		@Override
+		public void run() {
+			updateChartLayout();
+		}
+
+	};
+
 	/** Keeps track of the number of different parameterizations tested. */
 	private Integer numberOfNewParams;
 
@@ -239,6 +271,7 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 		controller= new Controller(this);
 		controller.addControllerListener(this);
 
+		redrawScheduler= new RedrawScheduler();
 		actionFactory= new ActionFactory(this, controller);
 		resultListModel= new SortedListModel<>();
 		metricListModel= new SortedListModel<>();
@@ -296,7 +329,7 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 				case 1:
 					return key.getProblem();
 				case 2:
-					return controller.get(key).size();
+					return controller.getSeedCount(key);
 				case 3:
 					return getParamNumber(key.getParameterization());
 				default:
@@ -316,21 +349,13 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 			public void mouseClicked(final MouseEvent e) {
 				if (SwingUtilities.isRightMouseButton(e)) {
 					int index= resultTable.rowAtPoint(e.getPoint());
-					boolean containsSet= false;
 
 					if (index == -1) { return; }
 
 					ResultKey key= resultListModel.getElementAt(index);
 
 					// verify that at least one accumulator contains data
-					for (Accumulator accumulator : controller.get(key)) {
-						if (accumulator.keySet().contains(
-							"Approximation Set")) {
-							containsSet= true;
-						}
-					}
-
-					if (!containsSet) { return; }
+					if (!controller.getMetrics(key).contains("Approximation Set")) { return; }
 
 					JPopupMenu popupMenu= new JPopupMenu();
 
@@ -431,6 +456,11 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 		JMenu file= new JMenu(localization.getString("menu.file"));
 		file.add(new JMenuItem(actionFactory.getSaveAction()));
 		file.add(new JMenuItem(actionFactory.getLoadAction()));
+		file.add(new JMenuItem(actionFactory.getMergeAction()));
+		file.add(new JMenuItem(actionFactory.getImportAction()));
+		file.add(new JMenuItem(actionFactory.getExportAction()));
+		file.add(new JCheckBoxMenuItem(actionFactory.getFastCompressionAction()));
+		file.add(new JCheckBoxMenuItem(actionFactory.getJournalResultsAction()));
 		file.addSeparator();
 		file.add(new JMenuItem(actionFactory.getExitAction()));
 
@@ -444,6 +474,8 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 		traceGroup.add(quantiles);
 		view.add(individualTraces);
 		view.add(quantiles);
+		view.add(new JCheckBoxMenuItem(
+			actionFactory.getLogarithmicBinningAction()));
 		view.addSeparator();
 		view.add(new JCheckBoxMenuItem(
 			actionFactory.getShowLastTraceAction()));
@@ -696,9 +728,7 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 		resultListModel.addAll(controller.getKeys());
 
 		for (ResultKey key : controller.getKeys()) {
-			for (Accumulator accumulator : controller.get(key)) {
-				metricListModel.addAll(accumulator.keySet());
-			}
+			metricListModel.addAll(controller.getMetrics(key));
 		}
 
 		// update metric list selection
@@ -752,6 +782,14 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 		return paintHelper;
 	}
 
+	/** Returns the redraw scheduler used by this diagnostic tool instance. Plots request their
+	 * redraws through this scheduler so bursts of controller events are coalesced.
+	 *
+	 * @return the redraw scheduler used by this diagnostic tool instance */
+	public RedrawScheduler getRedrawScheduler() {
+		return redrawScheduler;
+	}
+
 	@Override
 	public void valueChanged(ListSelectionEvent e) {
 		if (e.getValueIsAdjusting()) { return; }
@@ -1054,22 +1092,13 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 	@Override
 	public void controllerStateChanged(ControllerEvent event) {
 		if (event.getType().equals(ControllerEvent.Type.MODEL_CHANGED)) {
-			if (controller.getKeys().isEmpty()) {
-				clear();
-			} else {
-				try {
-					updateModel();
-				} catch (IOException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			}
+			redrawScheduler.requestTask(modelTask);
 		} else if (event.getType().equals(
 			ControllerEvent.Type.PROGRESS_CHANGED)) {
 			runProgress.setValue(controller.getRunProgress());
 			overallProgress.setValue(controller.getOverallProgress());
 		} else if (event.getType().equals(ControllerEvent.Type.VIEW_CHANGED)) {
-			updateChartLayout();
+			redrawScheduler.requestTask(layoutTask);
 		} else if (event.getType().equals(ControllerEvent.Type.PARAM_CHANGED)) {
 			try {
 				updateParameterizationPlot();
@@ -1079,9 +1108,29 @@ public class DiagnosticTool extends JFrame implements ListSelectionListener,
 		}
 	}
 
+	/** Starts journaling finished seeds. If an interrupted session left seeds in the journal, the
+	 * user is asked whether to recover them. This method should be invoked once the window is
+	 * visible. */
+	public void openJournal() {
+		int count= controller.openJournal();
+		boolean recover= false;
+
+		if (count > 0) {
+			recover= JOptionPane.showConfirmDialog(
+				this,
+				localization.getString("text.recoverJournal", count),
+				localization.getString("title.recoverJournal"),
+				JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+		}
+
+		controller.startJournal(recover);
+	}
+
 	@Override
 	public void dispose() {
 		controller.cancel();
+		controller.closeJournal(true);
+		redrawScheduler.stop();
 		super.dispose();
 	}
 
@@ -0,0 +1,113 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+/** Reduces the number of points of a line series for display while preserving its visual shape,
+ * using the Largest-Triangle-Three-Buckets algorithm of Steinarsson. The first and last points are
+ * always kept. The points in between are split into equally sized buckets, and from each bucket
+ * the point forming the largest triangle with the point kept from the previous bucket and the
+ * average of the next bucket is kept, so peaks and troughs survive the reduction. */
+public class Downsampler {
+
+	/** The smallest number of points to which a series is reduced, being the first point, the last
+	 * point and one bucket in between. */
+	public static final int MINIMUM_THRESHOLD= 3;
+
+	/** Constructs a new downsampler; not used as all methods are static. */
+	private Downsampler() {
+		super();
+	}
+
+	/** Reduces a run of points to at most the specified number of points. The kept points are
+	 * moved, in order, to the start of the run, and the number kept is returned; the remainder of
+	 * the run is left unspecified. Runs no longer than the threshold are left unchanged.
+	 *
+	 * @param x         the x values, which must be in ascending order within the run
+	 * @param y         the y values
+	 * @param offset    the index of the first point of the run
+	 * @param length    the number of points in the run
+	 * @param threshold the largest number of points to keep, which is raised to
+	 *                  {@value #MINIMUM_THRESHOLD} if smaller
+	 * @return the number of points kept */
+	public static int largestTriangleThreeBuckets(double[] x, double[] y, int offset, int length,
+		int threshold) {
+		threshold= Math.max(threshold, MINIMUM_THRESHOLD);
+
+		if (length <= threshold) { return length; }
+
+		double ax= x[offset];
+		double ay= y[offset];
+		int kept= 1;
+
+		for (int i= 0; i < threshold - 2; i++ ) {
+			int start= bound(offset, length, threshold, i);
+			int end= bound(offset, length, threshold, i + 1);
+			int nextEnd= Math.min(bound(offset, length, threshold, i + 2), offset + length);
+
+			//the average of the next bucket, which is the last point for the final bucket
+			double cx= 0.0;
+			double cy= 0.0;
+
+			for (int j= end; j < nextEnd; j++ ) {
+				cx+= x[j];
+				cy+= y[j];
+			}
+
+			cx/= nextEnd - end;
+			cy/= nextEnd - end;
+
+			int selected= start;
+			double maxArea= -1.0;
+
+			for (int j= start; j < end; j++ ) {
+				double area= Math.abs((ax - cx) * (y[j] - ay) - (ax - x[j]) * (cy - ay));
+
+				if (area > maxArea) {
+					maxArea= area;
+					selected= j;
+				}
+			}
+
+			//the kept slot never lies past a bucket still to be read
+			ax= x[selected];
+			ay= y[selected];
+			x[offset + kept]= ax;
+			y[offset + kept]= ay;
+			kept++ ;
+		}
+
+		x[offset + kept]= x[offset + length - 1];
+		y[offset + kept]= y[offset + length - 1];
+		kept++ ;
+
+		return kept;
+	}
+
+	/** Returns the index of the first point of a bucket. Every bucket holds at least one point,
+	 * and bucket {@code threshold - 2} starts at the last point of the run.
+	 *
+	 * @param offset    the index of the first point of the run
+	 * @param length    the number of points in the run
+	 * @param threshold the number of points to keep
+	 * @param bucket    the index of the bucket
+	 * @return the index of the first point of the bucket */
+	private static int bound(int offset, int length, int threshold, int bucket) {
+		return offset + 1 + (int) ((long) bucket * (length - 2) / (threshold - 2));
+	}
+
+}
@@ -38,8 +38,9 @@ public class EmptyPlot extends ResultPlot {
 	}
 	
 	@Override
-	protected void update() {
-		//do nothing
+	protected PlotUpdate createUpdate() {
+		//nothing to display
+		return null;
 	}
 
 }
@@ -0,0 +1,325 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.variable.RealVariable;
+
+/** Caches the frames shown by the {@link ApproximationSetViewer}, where a frame is the points of
+ * one approximation set snapshot of one seed projected onto the selected axes. The NFE of the
+ * snapshots of each seed are indexed when the cache is created, so the snapshot shown at an NFE is
+ * found by binary search. At most a fixed number of frames per seed are kept, evicting the least
+ * recently used, and the frames around the current position, or the frames about to be shown
+ * during playback, are prefetched on a background thread so the viewer rarely has to read the
+ * snapshots itself. */
+public class FrameCache {
+
+	/** The number of frames kept per seed. */
+	public static final int FRAMES_PER_SEED= 64;
+
+	/** The number of snapshots prefetched on each side of the current position. */
+	public static final int PREFETCH_RADIUS= 16;
+
+	/** The executor prefetching frames, shared by all caches. */
+	private static final ExecutorService EXECUTOR= Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread= new Thread(runnable, "frame-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	});
+
+	/** The seeds, which must not be modified while cached. */
+	private final List<Accumulator> accumulators;
+
+	/** The NFE of the snapshots of each seed, in ascending order. */
+	private final int[][] nfe;
+
+	/** The cached frames, keyed by seed and snapshot index, in order of least recent use. */
+	private final Map<Long, double[][]> frames;
+
+	/** The number of the most recent prefetch request, so superseded requests stop early. */
+	private final AtomicLong generation;
+
+	/** The value shown on the x-axis of the cached frames. */
+	private int xAxis;
+
+	/** The value shown on the y-axis of the cached frames. */
+	private int yAxis;
+
+	/** Constructs a new frame cache for the specified seeds, indexing the NFE of their snapshots.
+	 *
+	 * @param accumulators the seeds, which must not be modified while cached */
+	public FrameCache(List<Accumulator> accumulators) {
+		super();
+		this.accumulators= accumulators;
+
+		final int capacity= Math.max(accumulators.size(), 1) * FRAMES_PER_SEED;
+
+		frames= new LinkedHashMap<Long, double[][]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID= 4395226946616207245L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, double[][]> eldest) {
+				return size() > capacity;
+			}
+
+		};
+
+		nfe= new int[accumulators.size()][];
+		generation= new AtomicLong();
+
+		for (int i= 0; i < accumulators.size(); i++ ) {
+			Accumulator accumulator= accumulators.get(i);
+			nfe[i]= new int[accumulator.size("NFE")];
+
+			for (int j= 0; j < nfe[i].length; j++ ) {
+				nfe[i][j]= (Integer) accumulator.get("NFE", j);
+			}
+		}
+	}
+
+	/** Returns the index of the snapshot of a seed shown at the specified NFE, being the first
+	 * snapshot recorded at or after the NFE, or the last snapshot if the NFE is past the end of the
+	 * run.
+	 *
+	 * @param seed  the index of the seed
+	 * @param value the NFE
+	 * @return the index of the snapshot shown at the NFE */
+	public int getIndex(int seed, int value) {
+		int[] array= nfe[seed];
+		int low= 0;
+		int high= array.length - 1;
+
+		while (low < high) {
+			int middle= (low + high) >>> 1;
+
+			if (array[middle] < value) {
+				low= middle + 1;
+			} else {
+				high= middle;
+			}
+		}
+
+		return low;
+	}
+
+	/** Returns the frame of a seed at the specified snapshot, reading it from the snapshot if it is
+	 * not cached. Changing the axes discards all cached frames.
+	 *
+	 * @param seed  the index of the seed
+	 * @param index the index of the snapshot
+	 * @param xAxis the value shown on the x-axis, as defined by {@link #getValue(Solution, int)}
+	 * @param yAxis the value shown on the y-axis
+	 * @return the x and y values of each solution in the snapshot */
+	public double[][] get(int seed, int index, int xAxis, int yAxis) {
+		Long key= getKey(seed, index);
+
+		synchronized (frames) {
+			setAxes(xAxis, yAxis);
+
+			double[][] frame= frames.get(key);
+
+			if (frame != null) { return frame; }
+		}
+
+		double[][] frame= createFrame(seed, index, xAxis, yAxis);
+		put(key, frame, xAxis, yAxis);
+		return frame;
+	}
+
+	/** Prefetches, on a background thread, the frames of the specified seeds around the snapshot
+	 * shown at an NFE, nearest snapshots first. Any prefetch still running is abandoned.
+	 *
+	 * @param seeds the indices of the seeds
+	 * @param value the NFE
+	 * @param xAxis the value shown on the x-axis
+	 * @param yAxis the value shown on the y-axis */
+	public void prefetch(final int[] seeds, final int value, final int xAxis, final int yAxis) {
+		final long number= generation.incrementAndGet();
+
+		EXECUTOR.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				int[] indices= new int[seeds.length];
+
+				for (int i= 0; i < seeds.length; i++ ) {
+					indices[i]= getIndex(seeds[i], value);
+				}
+
+				for (int offset= 0; offset <= PREFETCH_RADIUS; offset++ ) {
+					for (int i= 0; i < seeds.length; i++ ) {
+						if (generation.get() != number) { return; }
+
+						prefetch(seeds[i], indices[i] + offset, xAxis, yAxis);
+
+						if (offset > 0) {
+							prefetch(seeds[i], indices[i] - offset, xAxis, yAxis);
+						}
+					}
+				}
+			}
+
+		});
+	}
+
+	/** Prefetches, on a background thread, the frames of the specified seeds shown at each of the
+	 * specified NFE, in order. Used during playback to read the upcoming frames ahead of time. Any
+	 * prefetch still running is abandoned.
+	 *
+	 * @param seeds  the indices of the seeds
+	 * @param values the NFE of the upcoming frames, in the order they are shown
+	 * @param xAxis  the value shown on the x-axis
+	 * @param yAxis  the value shown on the y-axis */
+	public void prefetchAhead(final int[] seeds, final int[] values, final int xAxis,
+		final int yAxis) {
+		final long number= generation.incrementAndGet();
+
+		EXECUTOR.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				for (int value : values) {
+					for (int seed : seeds) {
+						if (generation.get() != number) { return; }
+
+						prefetch(seed, getIndex(seed, value), xAxis, yAxis);
+					}
+				}
+			}
+
+		});
+	}
+
+	/** Reads and caches a frame unless it is already cached. Invoked on the background thread.
+	 *
+	 * @param seed  the index of the seed
+	 * @param index the index of the snapshot, which is ignored if out of bounds
+	 * @param xAxis the value shown on the x-axis
+	 * @param yAxis the value shown on the y-axis */
+	private void prefetch(int seed, int index, int xAxis, int yAxis) {
+		if ((index < 0) || (index >= nfe[seed].length) ||
+			!accumulators.get(seed).keySet().contains("Approximation Set")) { return; }
+
+		Long key= getKey(seed, index);
+
+		synchronized (frames) {
+			if ((xAxis != this.xAxis) || (yAxis != this.yAxis) || frames.containsKey(key)) { return; }
+		}
+
+		put(key, createFrame(seed, index, xAxis, yAxis), xAxis, yAxis);
+	}
+
+	/** Caches a frame, unless the axes changed while it was read.
+	 *
+	 * @param key   the key of the frame
+	 * @param frame the frame
+	 * @param xAxis the value shown on the x-axis of the frame
+	 * @param yAxis the value shown on the y-axis of the frame */
+	private void put(Long key, double[][] frame, int xAxis, int yAxis) {
+		synchronized (frames) {
+			if ((xAxis == this.xAxis) && (yAxis == this.yAxis)) {
+				frames.put(key, frame);
+			}
+		}
+	}
+
+	/** Sets the axes of the cached frames, discarding all frames if they change. Must be invoked
+	 * while holding the lock on the frames.
+	 *
+	 * @param xAxis the value shown on the x-axis
+	 * @param yAxis the value shown on the y-axis */
+	private void setAxes(int xAxis, int yAxis) {
+		if ((xAxis != this.xAxis) || (yAxis != this.yAxis)) {
+			frames.clear();
+			this.xAxis= xAxis;
+			this.yAxis= yAxis;
+		}
+	}
+
+	/** Reads a frame from the snapshot of a seed.
+	 *
+	 * @param seed  the index of the seed
+	 * @param index the index of the snapshot
+	 * @param xAxis the value shown on the x-axis
+	 * @param yAxis the value shown on the y-axis
+	 * @return the x and y values of each solution in the snapshot */
+	private double[][] createFrame(int seed, int index, int xAxis, int yAxis) {
+		List<?> list= (List<?>) accumulators.get(seed).get("Approximation Set", index);
+		double[][] frame= new double[list.size()][];
+
+		for (int i= 0; i < list.size(); i++ ) {
+			Solution solution= (Solution) list.get(i);
+			frame[i]= new double[] { getValue(solution, xAxis), getValue(solution, yAxis) };
+		}
+
+		return frame;
+	}
+
+	/** Returns the key of a frame.
+	 *
+	 * @param seed  the index of the seed
+	 * @param index the index of the snapshot
+	 * @return the key of the frame */
+	private static Long getKey(int seed, int index) {
+		return ((long) seed << 32) | (index & 0xFFFFFFFFL);
+	}
+
+	/** Returns the value of a solution shown on an axis, which is one of its objectives, constraints
+	 * or real-valued decision variables numbered in that order. Returns {@code 0.0} for other
+	 * variables.
+	 *
+	 * @param solution  the solution
+	 * @param selection the index of the objective, constraint or variable
+	 * @return the value of the solution shown on the axis */
+	public static double getValue(Solution solution, int selection) {
+		if (selection < solution.getNumberOfObjectives()) {
+			return solution.getObjective(selection);
+		} else {
+			selection-= solution.getNumberOfObjectives();
+		}
+
+		if (selection < solution.getNumberOfConstraints()) {
+			return solution.getConstraint(selection);
+		} else {
+			selection-= solution.getNumberOfConstraints();
+		}
+
+		if ((selection < solution.getNumberOfVariables()) &&
+			(solution.getVariable(selection) instanceof RealVariable)) {
+			return ((RealVariable) solution.getVariable(selection)).getValue();
+		} else {
+			return 0.0;
+		}
+	}
+
+}
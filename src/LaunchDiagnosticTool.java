@@ -52,6 +52,7 @@ public class LaunchDiagnosticTool extends CommandLineUtility {
 					diagnosticTool= new DiagnosticTool();
 					diagnosticTool.setIconImages(Settings.getIconImages());
 					diagnosticTool.setVisible(true);
+					diagnosticTool.openJournal();
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
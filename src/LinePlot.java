@@ -21,15 +21,15 @@ import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Paint;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -38,15 +38,18 @@ import org.jfree.chart.LegendItemCollection;
 import org.jfree.chart.LegendItemSource;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.block.LineBorder;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
 import org.jfree.chart.plot.DatasetRenderingOrder;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.DeviationRenderer;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.chart.title.LegendTitle;
-import org.jfree.data.xy.DefaultTableXYDataset;
+import org.jfree.data.Range;
 import org.jfree.data.xy.XYDataset;
 import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.data.xy.YIntervalSeries;
 import org.jfree.data.xy.YIntervalSeriesCollection;
 import org.jfree.ui.RectangleEdge;
@@ -69,54 +72,73 @@ public class LinePlot extends ResultPlot {
 			LinePlot.class);
 	
 	/**
-	 * The resolution of the line plot, controlling the number of collected
-	 * samples are included in each plotted point.
+	 * The plot width, in pixels, assumed before this plot has been laid out.
 	 */
-	private final int RESOLUTION = 500;
-
+	private static final int DEFAULT_WIDTH = 1024;
+	
 	/**
-	 * A data point, storing the NFE and corresponding metric value.
+	 * The chart, which is created on the first update and reused afterwards;
+	 * or {@code null} if no chart has been created yet.
 	 */
-	private static class DataPoint implements Comparable<DataPoint> {
-		
-		/**
-		 * The number of evaluations of this data point.
-		 */
-		private final int NFE;
-		
-		/**
-		 * The metric value of this data point.
-		 */
-		private final double value;
+	private JFreeChart chart;
 	
-		/**
-		 * Constructs a data point with the specified number of evaluations and
-		 * metric value.
-		 * 
-		 * @param NFE the number of evaluations of this data point
-		 * @param value the metric value of this data point
-		 */
-		public DataPoint(int NFE, double value) {
-			super();
-			this.NFE = NFE;
-			this.value = value;
-		}
+	/**
+	 * The plot of the chart; or {@code null} if no chart has been created yet.
+	 */
+	private XYPlot plot;
 	
-		@Override
-		public int compareTo(DataPoint rhs) {
-			return new CompareToBuilder().append(NFE, rhs.NFE).toComparison();
-		}
-
-		public int getNFE() {
-			return NFE;
-		}
-
-		public double getValue() {
-			return value;
-		}
-		
-	}
+	/**
+	 * The renderer used when showing individual traces.
+	 */
+	private XYLineAndShapeRenderer traceRenderer;
 	
+	/**
+	 * The renderer used when showing quantiles.
+	 */
+	private DeviationRenderer quantileRenderer;
+	
+	/**
+	 * The legend items, with only one item per result.
+	 */
+	private LegendItemCollection legendItems;
+	
+	/**
+	 * The NFE range for which the range-dependent series were last generated;
+	 * or {@code null} if they were generated for the full range.
+	 */
+	private Range generatedRange;
+	
+	/**
+	 * The plot width, in pixels, for which the range-dependent series were
+	 * last generated.
+	 */
+	private int generatedWidth;
+	
+	/**
+	 * {@code true} if the current plot shows individual traces; {@code false}
+	 * if it shows quantiles.
+	 */
+	private boolean individualTraces;
+	
+	/**
+	 * The accumulator whose trace is overlaid on the current plot; or
+	 * {@code null} if no trace is overlaid.
+	 */
+	private Accumulator overlaidAccumulator;
+	
+	/**
+	 * The keys of the results shown by the current plot.
+	 */
+	private List<ResultKey> displayedResults;
+	
+	/**
+	 * {@code true} if the data model or the quantile buckets changed and the
+	 * update showing the change has not yet been applied; {@code false}
+	 * otherwise.  While set, range updates regenerate all series from the
+	 * current selection.
+	 */
+	private boolean modelChanged;
+
 	/**
 	 * Constructs a line plot for the specified metric.
 	 * 
@@ -127,178 +149,515 @@ public class LinePlot extends ResultPlot {
 		super(frame, metric);
 		
 		setLayout(new BorderLayout());
+		
+		//regenerate the downsampled series and quantile buckets once resizing
+		//settles
+		final Runnable resizeTask = new Runnable() {
+
+			@Override
+			public void run() {
+				if (plot != null) {
+					updateRange(plot.getDomainAxis().getRange());
+				}
+			}
+			
+		};
+		
+		addComponentListener(new ComponentAdapter() {
+
+			@Override
+			public void componentResized(ComponentEvent e) {
+				LinePlot.this.frame.getRedrawScheduler().requestTask(
+						resizeTask);
+			}
+			
+		});
 	}
 	
 	/**
-	 * Generate the individual series for the specified key.
+	 * Generates the individual series of the specified results.  The series
+	 * of each result are generated in parallel and added to the dataset in
+	 * the order of the keys.
 	 * 
-	 * @param key the key identifying which result to plot
-	 * @param dataset the dataset to store the generated series
+	 * @param keys the keys identifying which results to plot
+	 * @param range the visible NFE range; or {@code null} if the full range is
+	 *        visible
+	 * @param width the plot width in pixels
+	 * @param update the update for which the series are generated; or
+	 *        {@code null} if the generation cannot be cancelled
+	 * @return the dataset containing the generated series; or {@code null} if
+	 *         the update was cancelled
 	 */
-	protected void generateIndividualSeries(ResultKey key, 
-			DefaultTableXYDataset dataset) {
-		for (Accumulator accumulator : controller.get(key)) {
-			if (!accumulator.keySet().contains(metric)) {
-				continue;
+	protected XYSeriesCollection generateIndividualSeries(
+			List<ResultKey> keys, final Range range, final int width, 
+			PlotUpdate update) {
+		XYSeriesCollection dataset = new XYSeriesCollection();
+		List<List<XYSeries>> results = generateAll(keys, update,
+				new ResultGenerator<List<XYSeries>>() {
+
+			@Override
+			public List<XYSeries> generate(ResultKey key) {
+				return generateIndividualSeries(key, range, width);
 			}
+			
+		});
 		
-			XYSeries series = new XYSeries(key, false, false);
-
-			for (int i=0; i<accumulator.size(metric); i++) {
-				series.add((Number)accumulator.get("NFE", i), 
-						(Number)accumulator.get(metric, i));
+		for (List<XYSeries> seriesList : results) {
+			if ((update != null) && update.isCancelled()) {
+				return null;
 			}
 			
-			dataset.addSeries(series);
+			for (XYSeries series : seriesList) {
+				dataset.addSeries(series);
+			}
 		}
+		
+		return dataset;
 	}
-
+	
 	/**
-	 * Generates the quantile series for the specified key.
+	 * Generate the individual series for the specified key.  This method may
+	 * be invoked concurrently for different results, so the plot width is
+	 * captured on the event dispatch thread and passed in.
 	 * 
 	 * @param key the key identifying which result to plot
-	 * @param dataset the dataset to store the generated series
+	 * @param range the visible NFE range; or {@code null} if the full range is
+	 *        visible
+	 * @param width the plot width in pixels
+	 * @return the series of each seed of the result
 	 */
-	protected void generateQuantileSeries(ResultKey key, 
-			YIntervalSeriesCollection dataset) {
-		List<DataPoint> dataPoints = new ArrayList<DataPoint>();
+	protected List<XYSeries> generateIndividualSeries(ResultKey key, 
+			Range range, int width) {
+		List<XYSeries> seriesList = new ArrayList<XYSeries>();
 		
 		for (Accumulator accumulator : controller.get(key)) {
-			if (!accumulator.keySet().contains(metric)) {
-				continue;
-			}
+			TracePyramid trace = controller.getTrace(accumulator, metric);
 			
-			for (int i=0; i<accumulator.size(metric); i++) {
-				dataPoints.add(new DataPoint(
-						(Integer)accumulator.get("NFE", i), 
-						((Number)accumulator.get(metric, i)).doubleValue()));
+			if (trace == null) {
+				continue;
 			}
+		
+			XYSeries series = new XYSeries(new TraceKey(key, seriesList.size()),
+					true, false);
+			addTrace(series, trace, range, width);
+			seriesList.add(series);
 		}
+		
+		return seriesList;
+	}
+	
+	/**
+	 * Adds the points of a trace to a series.  Inside the visible range, the
+	 * coarsest pyramid level with at least one bucket per pixel is used, and
+	 * its points are then downsampled to about one point per pixel.  Outside
+	 * of it, the level matching the full trace is used, so the domain axis can
+	 * still auto-range to the full extent of the data.
+	 * 
+	 * @param series the series receiving the points
+	 * @param trace the trace
+	 * @param range the visible NFE range; or {@code null} if the full range is
+	 *        visible
+	 * @param width the plot width in pixels
+	 */
+	protected void addTrace(XYSeries series, TracePyramid trace, Range range,
+			int width) {
+		int coarse = trace.selectLevel(trace.getMinimumNFE(),
+				trace.getMaximumNFE(), width);
+		Points points = new Points();
+		
+		if (range == null) {
+			points.addLevel(trace.getLevel(coarse), Double.NEGATIVE_INFINITY,
+					Double.POSITIVE_INFINITY);
+			points.downsample(0, width);
+		} else {
+			int fine = trace.selectLevel(range.getLowerBound(),
+					range.getUpperBound(), width);
+			
+			points.addLevel(trace.getLevel(coarse), Double.NEGATIVE_INFINITY,
+					range.getLowerBound());
 			
-		Collections.sort(dataPoints);
+			int start = points.size();
+			
+			points.addLevel(trace.getLevel(fine), range.getLowerBound(),
+					range.getUpperBound());
+			points.downsample(start, width);
+			points.addLevel(trace.getLevel(coarse), range.getUpperBound(),
+					Double.POSITIVE_INFINITY);
+		}
+		
+		for (int i=0; i<points.size(); i++) {
+			series.add(points.getX(i), points.getY(i), false);
+		}
+	}
+	
+	/**
+	 * Returns the width of this plot in pixels, or a default width if this
+	 * plot has not yet been laid out.  This method must only be invoked on the
+	 * event dispatch thread.
+	 * 
+	 * @return the width of this plot in pixels
+	 */
+	protected int getPlotWidth() {
+		return getWidth() > 0 ? getWidth() : DEFAULT_WIDTH;
+	}
+	
+	/**
+	 * Generates the series showing the last trace.
+	 * 
+	 * @param lastAccumulator the accumulator of the last run
+	 * @param range the visible NFE range; or {@code null} if the full range is
+	 *        visible
+	 * @param width the plot width in pixels
+	 * @return the dataset containing the last trace
+	 */
+	protected XYDataset generateLastTraceSeries(Accumulator lastAccumulator,
+			Range range, int width) {
+		XYSeriesCollection dataset = new XYSeriesCollection();
+		XYSeries series = new XYSeries(
+				localization.getString("text.last"),
+				true, false);
+		
+		addTrace(series, controller.getTrace(lastAccumulator, metric), range,
+				width);
+		dataset.addSeries(series);
+		
+		return dataset;
+	}
+	
+	/**
+	 * Regenerates, in the background, the series whose level of detail
+	 * depends on the visible NFE range or the plot width.  This is invoked
+	 * when the user zooms or pans along the domain axis or resizes the plot,
+	 * and must only be invoked on the event dispatch thread.  A newer range
+	 * or data model update cancels the regeneration.  The quantile buckets
+	 * are chosen from the plot width, so resizing a plot showing quantiles
+	 * regenerates all of its series, keeping the visible range.
+	 * 
+	 * @param range the visible NFE range
+	 */
+	protected void updateRange(Range range) {
+		if ((plot == null) || (range.equals(generatedRange) && 
+				(getPlotWidth() == generatedWidth))) {
+			return;
+		}
+		
+		if (!individualTraces && (getPlotWidth() != generatedWidth)) {
+			modelChanged = true;
+		}
+		
+		generatedRange = range;
+		generatedWidth = getPlotWidth();
+		
+		submit(createUpdate(range));
+	}
 
+	/**
+	 * Generates the quantile series for the specified key.  The quantiles of
+	 * each NFE bucket are maintained by the controller as seeds are added, so
+	 * this only copies the cached quantiles into the series.  The buckets are
+	 * chosen by the controller from the NFE range and sampling density of the
+	 * result and the plot width.
+	 * 
+	 * @param key the key identifying which result to plot
+	 * @param width the plot width in pixels
+	 * @param logarithmic {@code true} to use logarithmic NFE buckets;
+	 *        {@code false} to use buckets of a fixed width
+	 * @return the quantile series of the result
+	 */
+	protected YIntervalSeries generateQuantileSeries(ResultKey key, int width,
+			boolean logarithmic) {
+		QuantileCache.Quantiles quantiles = controller.getQuantiles(key, metric,
+				width, logarithmic);
 		YIntervalSeries series = new YIntervalSeries(key);
-		DescriptiveStatistics statistics = new DescriptiveStatistics();
-		int index = 0;
-		int currentNFE = RESOLUTION;
-
-		while (index < dataPoints.size()) {
-			DataPoint point = dataPoints.get(index);
-
-			if (point.getNFE() <= currentNFE) {
-				statistics.addValue(point.getValue());
-				index++;
-			} else {
-				if (statistics.getN() > 0) {
-					series.add(currentNFE, 
-							statistics.getPercentile(50), 
-							statistics.getPercentile(25), 
-							statistics.getPercentile(75));
-				}
-
-				statistics.clear();
-				currentNFE += RESOLUTION;
-			}
+		
+		//if only entry, add extra point to display non-zero width
+		if (quantiles.size() == 1) {
+			series.add(quantiles.getStartNFE(0), 
+					quantiles.getMedian(0), 
+					quantiles.getLower(0), 
+					quantiles.getUpper(0));
 		}
-
-		if (statistics.getN() > 0) {
-			//if only entry, add extra point to display non-zero width
-			if (series.isEmpty()) {
-				series.add(currentNFE-RESOLUTION, 
-						statistics.getPercentile(50), 
-						statistics.getPercentile(25), 
-						statistics.getPercentile(75));
-			}
-
-			series.add(currentNFE, 
-					statistics.getPercentile(50), 
-					statistics.getPercentile(25), 
-					statistics.getPercentile(75));
+		
+		for (int i=0; i<quantiles.size(); i++) {
+			series.add(quantiles.getNFE(i), 
+					quantiles.getMedian(i), 
+					quantiles.getLower(i), 
+					quantiles.getUpper(i));
 		}
 		
-		dataset.addSeries(series);
+		return series;
 	}
 	
 	@Override
-	protected void update() {
-		XYDataset dataset = null;
+	protected PlotUpdate createUpdate() {
+		modelChanged = true;
+		return createUpdate(null);
+	}
+	
+	/**
+	 * Creates an update of this plot for the specified visible NFE range.  If
+	 * the data model changed since the last applied update, all series are
+	 * regenerated from the current selection.  Otherwise, only the series
+	 * whose level of detail depends on the range and plot width are
+	 * regenerated, for the results currently displayed.  The plot width is
+	 * captured when the update is created.
+	 * 
+	 * @param range the visible NFE range; or {@code null} to show the full
+	 *        range and rescale the axes
+	 * @return the update; or {@code null} if nothing needs to be regenerated
+	 */
+	protected PlotUpdate createUpdate(final Range range) {
+		final boolean full = modelChanged;
+		final List<ResultKey> keys;
+		final boolean showIndividualTraces;
+		final Accumulator lastAccumulator;
 		
-		//generate the plot data
-		if (controller.getShowIndividualTraces()) {
-			dataset = new DefaultTableXYDataset();
+		if (full) {
+			keys = frame.getSelectedResults();
+			showIndividualTraces = controller.getShowIndividualTraces();
+			lastAccumulator = controller.getShowLastTrace() &&
+					!showIndividualTraces ? controller.getLastAccumulator() : null;
+		} else if (individualTraces || (overlaidAccumulator != null)) {
+			keys = displayedResults;
+			showIndividualTraces = individualTraces;
+			lastAccumulator = overlaidAccumulator;
+		} else {
+			return null;
+		}
+		
+		final boolean logarithmicBinning = controller.getLogarithmicBinning();
+		final int width = getPlotWidth();
+		
+		return new PlotUpdate() {
+			
+			private XYDataset dataset;
 			
-			for (ResultKey key : frame.getSelectedResults()) {
-				generateIndividualSeries(key, (DefaultTableXYDataset)dataset);
+			private XYDataset dataset2;
+
+			@Override
+			protected void prepare() {
+				if (showIndividualTraces) {
+					dataset = generateIndividualSeries(keys, range, width, 
+							this);
+				} else if (full) {
+					YIntervalSeriesCollection quantiles = 
+							new YIntervalSeriesCollection();
+					List<YIntervalSeries> results = generateAll(keys, this, 
+							new ResultGenerator<YIntervalSeries>() {
+
+						@Override
+						public YIntervalSeries generate(ResultKey key) {
+							return generateQuantileSeries(key, width,
+									logarithmicBinning);
+						}
+						
+					});
+
+					for (YIntervalSeries series : results) {
+						if (isCancelled()) {
+							return;
+						}
+						
+						quantiles.addSeries(series);
+					}
+					
+					dataset = quantiles;
+				}
+				
+				if (isCancelled()) {
+					return;
+				}
+				
+				if ((lastAccumulator != null) && 
+						(controller.getTrace(lastAccumulator, metric) != null)) {
+					dataset2 = generateLastTraceSeries(lastAccumulator, range,
+							width);
+				}
 			}
-		} else {
-			dataset = new YIntervalSeriesCollection();
 
-			for (ResultKey key : frame.getSelectedResults()) {
-				generateQuantileSeries(key, (YIntervalSeriesCollection)dataset);
+			@Override
+			protected void apply() {
+				if (full) {
+					modelChanged = false;
+					display(keys, dataset, showIndividualTraces, 
+							dataset2 == null ? null : lastAccumulator, dataset2,
+							range == null);
+				} else {
+					displayRange(dataset, dataset2);
+				}
 			}
+			
+		};
+	}
+	
+	/**
+	 * Shows the prepared datasets in the chart of this plot, creating the
+	 * chart on the first update.  This method is invoked on the event
+	 * dispatch thread.
+	 * 
+	 * @param keys the keys of the displayed results
+	 * @param dataset the individual traces or quantiles of the selected
+	 *        results
+	 * @param showIndividualTraces {@code true} if the dataset contains
+	 *        individual traces; {@code false} if it contains quantiles
+	 * @param lastAccumulator the accumulator whose trace is overlaid; or
+	 *        {@code null} if no trace is overlaid
+	 * @param dataset2 the overlaid trace; or {@code null} if no trace is
+	 *        overlaid
+	 * @param rescale {@code true} to rescale the axes to the new data;
+	 *        {@code false} to keep the visible range
+	 */
+	protected void display(List<ResultKey> keys, XYDataset dataset, 
+			boolean showIndividualTraces, Accumulator lastAccumulator, 
+			XYDataset dataset2, boolean rescale) {
+		if (chart == null) {
+			createChart();
 		}
-
-		//create the chart
-		JFreeChart chart = ChartFactory.createXYLineChart(
-				metric,
-				localization.getString("text.NFE"),
-				localization.getString("text.value"),
-				dataset,
-				PlotOrientation.VERTICAL,
-				false,
-				true,
-				false);
-		final XYPlot plot = chart.getXYPlot();
 		
-		//setup the series renderer
-		if (controller.getShowIndividualTraces()) {
-			XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, 
-					false);
+		//suspend change events so the chart is redrawn only once
+		chart.setNotify(false);
+		
+		try {
+			displayedResults = keys;
+			individualTraces = showIndividualTraces;
+			overlaidAccumulator = lastAccumulator;
 			
-			for (int i=0; i<dataset.getSeriesCount(); i++) {
-				Paint paint = frame.getPaintHelper().get(
-						dataset.getSeriesKey(i));
-	
-				renderer.setSeriesStroke(i, new BasicStroke(1f, 1, 1));
-				renderer.setSeriesPaint(i, paint);
+			//update the series renderer
+			if (showIndividualTraces) {
+				setTracePaints(dataset);
+				plot.setRenderer(traceRenderer);
+			} else {
+				for (int i=0; i<dataset.getSeriesCount(); i++) {
+					Paint paint = frame.getPaintHelper().get(
+							dataset.getSeriesKey(i));
+		
+					quantileRenderer.setSeriesStroke(i, new BasicStroke(3f, 1, 1));
+					quantileRenderer.setSeriesPaint(i, paint);
+					quantileRenderer.setSeriesFillPaint(i, paint);
+				}
+		
+				plot.setRenderer(quantileRenderer);
 			}
 			
-			plot.setRenderer(renderer);
-		} else {
-			DeviationRenderer renderer = new DeviationRenderer(true, false);
-	
-			for (int i=0; i<dataset.getSeriesCount(); i++) {
-				Paint paint = frame.getPaintHelper().get(
-						dataset.getSeriesKey(i));
-	
-				renderer.setSeriesStroke(i, new BasicStroke(3f, 1, 1));
-				renderer.setSeriesPaint(i, paint);
-				renderer.setSeriesFillPaint(i, paint);
+			plot.setDataset(0, dataset);
+			plot.setDataset(1, null);
+			
+			//update the legend, which does not include the overlay
+			LegendItemCollection items = plot.getLegendItems();
+			Iterator<?> iterator = items.iterator();
+			Set<ResultKey> uniqueKeys = new HashSet<ResultKey>();
+			
+			while (iterator.hasNext()) {
+				LegendItem item = (LegendItem)iterator.next();
+				ResultKey key = getResultKey(item.getSeriesKey());
+				
+				if (uniqueKeys.contains(key)) {
+					iterator.remove();
+				} else {
+					uniqueKeys.add(key);
+				}
 			}
-	
-			plot.setRenderer(renderer);
+			
+			legendItems = items;
+			plot.setDataset(1, dataset2);
+			
+			//rescale the axes to the new data
+			if (rescale) {
+				plot.getDomainAxis().setAutoRange(true);
+				plot.getRangeAxis().setAutoRange(true);
+			}
+		} finally {
+			chart.setNotify(true);
 		}
 		
-		//create the legend
-		final LegendItemCollection items = plot.getLegendItems();
-		Iterator<?> iterator = items.iterator();
-		Set<ResultKey> uniqueKeys = new HashSet<ResultKey>();
+		generatedRange = plot.getDomainAxis().getRange();
+		generatedWidth = getPlotWidth();
+	}
+	
+	/**
+	 * Shows the series regenerated for a new visible range or plot width.
+	 * The series are for the results already displayed, in the same order,
+	 * but the paints are set again so each series keeps the paint of its
+	 * result.  This method is invoked on the event dispatch thread.
+	 * 
+	 * @param dataset the individual traces; or {@code null} if the plot shows
+	 *        quantiles
+	 * @param dataset2 the overlaid trace; or {@code null} if no trace is
+	 *        overlaid
+	 */
+	protected void displayRange(XYDataset dataset, XYDataset dataset2) {
+		//suspend change events so the chart is redrawn only once
+		chart.setNotify(false);
 		
-		while (iterator.hasNext()) {
-			LegendItem item = (LegendItem)iterator.next();
-			
-			if (uniqueKeys.contains(item.getSeriesKey())) {
-				iterator.remove();
+		try {
+			if (individualTraces) {
+				setTracePaints(dataset);
+				plot.setDataset(0, dataset);
 			} else {
-				uniqueKeys.add((ResultKey)item.getSeriesKey());
+				plot.setDataset(1, dataset2);
 			}
+		} finally {
+			chart.setNotify(true);
+		}
+	}
+	
+	/**
+	 * Sets the paint and stroke of each individual trace from the paint of its
+	 * result.
+	 * 
+	 * @param dataset the individual traces
+	 */
+	private void setTracePaints(XYDataset dataset) {
+		for (int i=0; i<dataset.getSeriesCount(); i++) {
+			Paint paint = frame.getPaintHelper().get(
+					getResultKey(dataset.getSeriesKey(i)));
+
+			traceRenderer.setSeriesStroke(i, new BasicStroke(1f, 1, 1));
+			traceRenderer.setSeriesPaint(i, paint);
 		}
+	}
+	
+	/**
+	 * Returns the key of the result shown by a series, which is either the
+	 * series key itself or the result of a {@link TraceKey}.
+	 * 
+	 * @param seriesKey the series key
+	 * @return the key of the result shown by the series
+	 */
+	private static ResultKey getResultKey(Comparable<?> seriesKey) {
+		if (seriesKey instanceof TraceKey) {
+			return ((TraceKey)seriesKey).key;
+		} else {
+			return (ResultKey)seriesKey;
+		}
+	}
+	
+	/**
+	 * Creates the chart and installs it in this plot.  The chart, its
+	 * renderers, axes and legend are kept for the lifetime of this plot, and
+	 * each update only replaces the datasets.
+	 */
+	protected void createChart() {
+		chart = ChartFactory.createXYLineChart(
+				metric,
+				localization.getString("text.NFE"),
+				localization.getString("text.value"),
+				null,
+				PlotOrientation.VERTICAL,
+				false,
+				true,
+				false);
+		plot = chart.getXYPlot();
+		traceRenderer = new XYLineAndShapeRenderer(true, false);
+		quantileRenderer = new DeviationRenderer(true, false);
+		legendItems = new LegendItemCollection();
 		
+		//create the legend
 		LegendItemSource source = new LegendItemSource() {
 
 			@Override
 			public LegendItemCollection getLegendItems() {
-				return items;
+				return legendItems;
 			}
 			
 		};
@@ -315,39 +674,204 @@ public class LinePlot extends ResultPlot {
 		domainAxis.setAutoRange(true);
 		plot.setDomainAxis(domainAxis);
 		
-		//add overlay
-		if (controller.getShowLastTrace() && 
-				!controller.getShowIndividualTraces() &&
-				(controller.getLastAccumulator() != null) && 
-				controller.getLastAccumulator().keySet().contains(metric)) {
-			DefaultTableXYDataset dataset2 = new DefaultTableXYDataset();
-			XYSeries series = new XYSeries(
-					localization.getString("text.last"),
-					false, false);
-			
-			for (int i=0; i<controller.getLastAccumulator().size(metric); i++) {
-				series.add(
-						(Number)controller.getLastAccumulator().get("NFE", i), 
-						(Number)controller.getLastAccumulator().get(metric, i));
+		//setup the overlay
+		XYLineAndShapeRenderer renderer2 = new XYLineAndShapeRenderer(true, 
+				false);
+		renderer2.setSeriesStroke(0, new BasicStroke(1f, 1, 1));
+		renderer2.setSeriesPaint(0, Color.BLACK);
+		
+		plot.setRenderer(1, renderer2);
+		plot.setDatasetRenderingOrder(DatasetRenderingOrder.FORWARD);
+		
+		//reload finer levels of detail when zooming, ignoring the changes
+		//made while the chart is being updated
+		domainAxis.addChangeListener(new AxisChangeListener() {
+
+			@Override
+			public void axisChanged(AxisChangeEvent event) {
+				if (chart.isNotify()) {
+					updateRange(domainAxis.getRange());
+				}
 			}
 			
-			dataset2.addSeries(series);
-			
-			XYLineAndShapeRenderer renderer2 = new XYLineAndShapeRenderer(true, 
-					false);
-			renderer2.setSeriesStroke(0, new BasicStroke(1f, 1, 1));
-			renderer2.setSeriesPaint(0, Color.BLACK);
-			
-			plot.setDataset(1, dataset2);
-			plot.setRenderer(1, renderer2);
-			plot.setDatasetRenderingOrder(DatasetRenderingOrder.FORWARD);
-		}
+		});
 		
-		//update the chart in the GUI
-		removeAll();
 		add(new ChartPanel(chart), BorderLayout.CENTER);
 		revalidate();
 		repaint();
 	}
 
+	/**
+	 * The key of the series showing the trace of one seed.  The series of an
+	 * {@code XYSeriesCollection} must have distinct keys, so each seed of a
+	 * result is numbered; the legend and paints use the result key.
+	 */
+	private static class TraceKey implements Comparable<TraceKey> {
+		
+		/**
+		 * The key of the result.
+		 */
+		private final ResultKey key;
+		
+		/**
+		 * The number of the seed within the result.
+		 */
+		private final int seed;
+		
+		/**
+		 * Constructs the key of the series showing the trace of one seed.
+		 * 
+		 * @param key the key of the result
+		 * @param seed the number of the seed within the result
+		 */
+		public TraceKey(ResultKey key, int seed) {
+			super();
+			this.key = key;
+			this.seed = seed;
+		}
+
+		@Override
+		public int compareTo(TraceKey rhs) {
+			int cmp = key.compareTo(rhs.key);
+			return cmp != 0 ? cmp : Integer.compare(seed, rhs.seed);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			} else if ((obj == null) || (obj.getClass() != getClass())) {
+				return false;
+			} else {
+				TraceKey rhs = (TraceKey)obj;
+				return key.equals(rhs.key) && (seed == rhs.seed);
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return 31*key.hashCode() + seed;
+		}
+
+		@Override
+		public String toString() {
+			return key.toString();
+		}
+		
+	}
+
+	/**
+	 * The points collected from the levels of a trace pyramid before they are
+	 * added to a series.  Points are only accepted in increasing NFE order.
+	 */
+	private static class Points {
+		
+		/**
+		 * The NFE of each point.
+		 */
+		private double[] x = new double[64];
+		
+		/**
+		 * The value of each point.
+		 */
+		private double[] y = new double[64];
+		
+		/**
+		 * The number of points.
+		 */
+		private int size;
+		
+		/**
+		 * Returns the number of points.
+		 * 
+		 * @return the number of points
+		 */
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * Returns the NFE of the specified point.
+		 * 
+		 * @param index the index of the point
+		 * @return the NFE of the point
+		 */
+		public double getX(int index) {
+			return x[index];
+		}
+		
+		/**
+		 * Returns the value of the specified point.
+		 * 
+		 * @param index the index of the point
+		 * @return the value of the point
+		 */
+		public double getY(int index) {
+			return y[index];
+		}
+		
+		/**
+		 * Adds the points of one pyramid level that lie within an NFE range.
+		 * Each bucket contributes its minimum and maximum, in the order they
+		 * occurred, so the envelope of the trace is preserved.
+		 * 
+		 * @param level the pyramid level
+		 * @param lower the lower bound of the NFE range
+		 * @param upper the upper bound of the NFE range
+		 */
+		public void addLevel(TracePyramid.Level level, double lower,
+				double upper) {
+			int end = Math.min(level.upperIndex(upper), level.size()-1);
+			
+			for (int i=Math.max(level.lowerIndex(lower), 0); i<=end; i++) {
+				int minNFE = level.getMinNFE(i);
+				int maxNFE = level.getMaxNFE(i);
+				
+				if (minNFE <= maxNFE) {
+					add(minNFE, level.getMin(i), lower, upper);
+					add(maxNFE, level.getMax(i), lower, upper);
+				} else {
+					add(maxNFE, level.getMax(i), lower, upper);
+					add(minNFE, level.getMin(i), lower, upper);
+				}
+			}
+		}
+		
+		/**
+		 * Adds a point if it lies within an NFE range and follows the last
+		 * point.
+		 * 
+		 * @param nfe the NFE of the point
+		 * @param value the value of the point
+		 * @param lower the lower bound of the NFE range
+		 * @param upper the upper bound of the NFE range
+		 */
+		private void add(int nfe, double value, double lower, double upper) {
+			if (((size == 0) || (nfe > x[size-1])) && (nfe >= lower) && 
+					(nfe <= upper)) {
+				if (size == x.length) {
+					x = Arrays.copyOf(x, 2*size);
+					y = Arrays.copyOf(y, 2*size);
+				}
+				
+				x[size] = nfe;
+				y[size] = value;
+				size++;
+			}
+		}
+		
+		/**
+		 * Downsamples the points from the specified index onwards to at most
+		 * the specified number of points.
+		 * 
+		 * @param start the index of the first point to downsample
+		 * @param threshold the largest number of points to keep
+		 */
+		public void downsample(int start, int threshold) {
+			size = start + Downsampler.largestTriangleThreeBuckets(x, y, start,
+					size-start, threshold);
+		}
+		
+	}
+
 }
@@ -0,0 +1,177 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+/** Divides the NFE axis into the buckets over which quantiles are aggregated. Buckets either have a
+ * fixed width or, with logarithmic binning, a fixed number of buckets per decade of NFE. Binnings
+ * are values, so they can be used as cache keys. {@link #choose(int, int, int, int, boolean)} picks
+ * the binning from the data; it rounds the width to the 1-2-5 series and the buckets per decade to
+ * a power of two. As a result, the binning of a growing run changes only a few times, and the
+ * cached quantiles are only rebuilt then. */
+public class NFEBinning {
+
+	/** The smallest number of pixels covered by one bucket when the plot spans the full NFE
+	 * range. */
+	public static final int PIXELS_PER_BUCKET= 4;
+
+	/** The largest number of buckets per decade with logarithmic binning. */
+	public static final int MAXIMUM_BUCKETS_PER_DECADE= 1024;
+
+	/** {@code true} if the buckets are logarithmic; {@code false} if they have a fixed width. */
+	private final boolean logarithmic;
+
+	/** The width of each bucket, in NFE; or the number of buckets per decade if the buckets are
+	 * logarithmic. */
+	private final int resolution;
+
+	/** Constructs a new binning.
+	 *
+	 * @param logarithmic {@code true} if the buckets are logarithmic; {@code false} if they have a
+	 *                    fixed width
+	 * @param resolution  the width of each bucket, in NFE; or the number of buckets per decade if
+	 *                    the buckets are logarithmic */
+	private NFEBinning(boolean logarithmic, int resolution) {
+		super();
+
+		if (resolution < 1) { throw new IllegalArgumentException("resolution must be positive"); }
+
+		this.logarithmic= logarithmic;
+		this.resolution= resolution;
+	}
+
+	/** Returns a binning with buckets of a fixed width. Bucket {@code i} covers the NFE in
+	 * {@code ((i-1)*width, i*width]}, except that bucket {@code 1} also covers {@code 0}.
+	 *
+	 * @param width the width of each bucket, in NFE
+	 * @return a binning with buckets of the specified width */
+	public static NFEBinning linear(int width) {
+		return new NFEBinning(false, width);
+	}
+
+	/** Returns a binning with a fixed number of buckets per decade. Bucket {@code i} covers the NFE
+	 * in {@code (10^((i-1)/n), 10^(i/n)]}, except that bucket {@code 0} covers all NFE up to
+	 * {@code 1}.
+	 *
+	 * @param bucketsPerDecade the number of buckets per decade
+	 * @return a binning with the specified number of buckets per decade */
+	public static NFEBinning logarithmic(int bucketsPerDecade) {
+		return new NFEBinning(true, bucketsPerDecade);
+	}
+
+	/** Chooses the binning for the traces of a result. The number of buckets is limited by the
+	 * plot width, at {@value #PIXELS_PER_BUCKET} pixels per bucket, and by the sampling density,
+	 * so each seed contributes about one sample or more to each bucket.
+	 *
+	 * @param minimumNFE  the smallest NFE of any sample
+	 * @param maximumNFE  the largest NFE of any sample
+	 * @param samples     the average number of samples per seed
+	 * @param width       the plot width in pixels
+	 * @param logarithmic {@code true} to choose logarithmic buckets; {@code false} to choose
+	 *                    buckets of a fixed width
+	 * @return the binning for the traces */
+	public static NFEBinning choose(int minimumNFE, int maximumNFE, int samples, int width,
+		boolean logarithmic) {
+		int count= Math.max(1, Math.min(width / PIXELS_PER_BUCKET, samples));
+
+		if (logarithmic) {
+			double decades= Math.log10(Math.max(maximumNFE, 10)) - Math.log10(Math.max(minimumNFE,
+				1));
+			int bucketsPerDecade= 1;
+
+			while (bucketsPerDecade < MAXIMUM_BUCKETS_PER_DECADE &&
+				2 * bucketsPerDecade * decades <= count) {
+				bucketsPerDecade*= 2;
+			}
+
+			return logarithmic(bucketsPerDecade);
+		} else {
+			long target= Math.max(1, ((long) maximumNFE + count - 1) / count);
+			long step= 1;
+
+			while (true) {
+				for (int multiple : new int[] { 1, 2, 5 }) {
+					if (multiple * step >= target) { return linear((int) (multiple * step)); }
+				}
+
+				step*= 10;
+			}
+		}
+	}
+
+	/** Returns {@code true} if the buckets are logarithmic; {@code false} if they have a fixed
+	 * width.
+	 *
+	 * @return {@code true} if the buckets are logarithmic; {@code false} if they have a fixed
+	 *         width */
+	public boolean isLogarithmic() {
+		return logarithmic;
+	}
+
+	/** Returns the width of each bucket, in NFE; or the number of buckets per decade if the
+	 * buckets are logarithmic.
+	 *
+	 * @return the width of each bucket, in NFE; or the number of buckets per decade if the buckets
+	 *         are logarithmic */
+	public int getResolution() {
+		return resolution;
+	}
+
+	/** Returns the bucket containing the specified NFE.
+	 *
+	 * @param nfe the NFE
+	 * @return the bucket containing the NFE */
+	public int getBucket(int nfe) {
+		if (logarithmic) {
+			return nfe <= 1 ? 0 : (int) Math.ceil(Math.log10(nfe) * resolution);
+		} else {
+			return Math.max(1, (int) (((long) nfe + resolution - 1) / resolution));
+		}
+	}
+
+	/** Returns the upper NFE bound of the specified bucket, which is the NFE at which the bucket is
+	 * plotted.
+	 *
+	 * @param bucket the bucket
+	 * @return the upper NFE bound of the bucket */
+	public int getNFE(int bucket) {
+		if (logarithmic) {
+			return (int) Math.floor(Math.pow(10.0, (double) bucket / resolution));
+		} else {
+			return (int) Math.min((long) bucket * resolution, Integer.MAX_VALUE);
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * resolution + (logarithmic ? 1 : 0);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		} else if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		} else {
+			NFEBinning rhs= (NFEBinning) obj;
+
+			return logarithmic == rhs.logarithmic && resolution == rhs.resolution;
+		}
+	}
+
+}
@@ -0,0 +1,226 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Assigns compact canonical identifiers to parameterizations. Each distinct parameterization is
+ * registered once and receives the next free identifier, starting at {@code 0}, so
+ * {@link ResultKey} can hash and compare parameterizations as integers.
+ * <p>
+ * Parameterizations are identified by their binary encoding, which covers every field, so distinct
+ * parameterizations never share an identifier. The string form of {@link Parameterization} is
+ * ambiguous and only kept for display; parameterizations known only by their string, such as those
+ * read from older data files, are identified by that string instead. */
+public class ParameterizationRegistry {
+
+	/** The number of bytes in the binary encoding of a parameterization. */
+	public static final int ENCODING_LENGTH= 12 * 8 + 6 * 4;
+
+	/** The singleton instance of this registry. */
+	private static final ParameterizationRegistry INSTANCE= new ParameterizationRegistry();
+
+	/** The identifier assigned to each registered binary encoding. */
+	private final ConcurrentMap<ByteBuffer, Integer> identifiers;
+
+	/** The identifier assigned to each parameterization registered only by its string. */
+	private final ConcurrentMap<String, Integer> names;
+
+	/** The parameterization string of each identifier. */
+	private final List<String> strings;
+
+	/** The binary encoding of each identifier; or {@code null} entries if the parameterization was
+	 * only registered by its string. */
+	private final List<byte[]> encodings;
+
+	/** Constructs a new, empty parameterization registry. */
+	ParameterizationRegistry() {
+		super();
+
+		identifiers= new ConcurrentHashMap<>();
+		names= new ConcurrentHashMap<>();
+		strings= new ArrayList<>();
+		encodings= new ArrayList<>();
+	}
+
+	/** Returns the singleton instance of this registry.
+	 *
+	 * @return the singleton instance of this registry */
+	public static ParameterizationRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/** Returns the identifier of the specified parameterization string, registering it if it has
+	 * not been seen before. This is only used for parameterizations whose binary encoding is not
+	 * known; they never share an identifier with an encoded parameterization.
+	 *
+	 * @param parameterization the parameterization string
+	 * @return the identifier of the parameterization */
+	public int register(String parameterization) {
+		Integer id= names.get(parameterization);
+
+		if (id != null) { return id; }
+
+		synchronized (this) {
+			id= names.get(parameterization);
+
+			if (id == null) {
+				id= add(parameterization, null);
+				names.put(parameterization, id);
+			}
+
+			return id;
+		}
+	}
+
+	/** Returns the identifier of the specified parameterization, registering it and its binary
+	 * encoding if it has not been seen before.
+	 *
+	 * @param parameterization the parameterization
+	 * @return the identifier of the parameterization */
+	public int register(Parameterization parameterization) {
+		return register(parameterization.toString(), encode(parameterization));
+	}
+
+	/** Returns the identifier of the parameterization with the specified binary encoding,
+	 * registering it if it has not been seen before. This is used when reading parameterizations
+	 * back from saved sessions and journals.
+	 *
+	 * @param parameterization the parameterization string, used for display
+	 * @param encoding         the binary encoding of the parameterization; or {@code null} if
+	 *                         not known, in which case the parameterization is identified by its
+	 *                         string
+	 * @return the identifier of the parameterization */
+	public int register(String parameterization, byte[] encoding) {
+		if (encoding == null) { return register(parameterization); }
+
+		ByteBuffer canonical= ByteBuffer.wrap(encoding.clone());
+		Integer id= identifiers.get(canonical);
+
+		if (id != null) { return id; }
+
+		synchronized (this) {
+			id= identifiers.get(canonical);
+
+			if (id == null) {
+				id= add(parameterization, canonical.array());
+				identifiers.put(canonical, id);
+			}
+
+			return id;
+		}
+	}
+
+	/** Assigns the next free identifier to a parameterization. The caller must hold the lock on
+	 * this registry.
+	 *
+	 * @param parameterization the parameterization string
+	 * @param encoding         the binary encoding of the parameterization; or {@code null} if
+	 *                         not known
+	 * @return the identifier of the parameterization */
+	private int add(String parameterization, byte[] encoding) {
+		int id= strings.size();
+		strings.add(parameterization);
+		encodings.add(encoding);
+		return id;
+	}
+
+	/** Returns the parameterization string of the specified identifier.
+	 *
+	 * @param id the identifier
+	 * @return the parameterization string of the identifier */
+	public synchronized String getString(int id) {
+		return strings.get(id);
+	}
+
+	/** Returns the binary encoding of the specified identifier.
+	 *
+	 * @param id the identifier
+	 * @return the binary encoding of the identifier; or {@code null} if the parameterization was
+	 *         only registered by its string */
+	public synchronized byte[] getEncoding(int id) {
+		byte[] encoding= encodings.get(id);
+		return encoding == null ? null : encoding.clone();
+	}
+
+	/** Returns the number of registered parameterizations.
+	 *
+	 * @return the number of registered parameterizations */
+	public synchronized int size() {
+		return strings.size();
+	}
+
+	/** Encodes a parameterization into {@value #ENCODING_LENGTH} bytes.
+	 *
+	 * @param p the parameterization
+	 * @return the binary encoding of the parameterization */
+	public static byte[] encode(Parameterization p) {
+		ByteBuffer buffer= ByteBuffer.allocate(ENCODING_LENGTH);
+		buffer.putDouble(p.sbxRate);
+		buffer.putDouble(p.sbxDistributionIndex);
+		buffer.putDouble(p.pmRate);
+		buffer.putDouble(p.pmDistributionIndex);
+		buffer.putDouble(p.deCrossoverRate);
+		buffer.putDouble(p.deStepSize);
+		buffer.putDouble(p.umRate);
+		buffer.putDouble(p.spxEpsilon);
+		buffer.putInt(p.spxParents);
+		buffer.putInt(p.spxOffspring);
+		buffer.putDouble(p.pcxEta);
+		buffer.putDouble(p.pcxZeta);
+		buffer.putInt(p.pcxParents);
+		buffer.putInt(p.pcxOffspring);
+		buffer.putDouble(p.undxZeta);
+		buffer.putDouble(p.undxEta);
+		buffer.putInt(p.undxParents);
+		buffer.putInt(p.undxOffspring);
+		return buffer.array();
+	}
+
+	/** Decodes a parameterization from its binary encoding.
+	 *
+	 * @param encoding the binary encoding produced by {@link #encode(Parameterization)}
+	 * @return the decoded parameterization */
+	public static Parameterization decode(byte[] encoding) {
+		ByteBuffer buffer= ByteBuffer.wrap(encoding);
+		return new Parameterization(
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getInt(),
+			buffer.getInt(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getInt(),
+			buffer.getInt(),
+			buffer.getDouble(),
+			buffer.getDouble(),
+			buffer.getInt(),
+			buffer.getInt());
+	}
+
+}
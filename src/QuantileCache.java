@@ -0,0 +1,289 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.moeaframework.analysis.collector.Accumulator;
+
+/** Caches the bucketed quantiles of a metric across the seeds of a result key. An entry is created
+ * the first time the quantiles of a (key, metric, binning) are requested and is then updated one
+ * seed at a time, so adding a seed only costs the samples of that seed. Each entry remembers which
+ * seeds it contains, so a seed is never counted twice regardless of whether it reaches the entry
+ * when added or when the entry catches up on a request. Only the most recently requested binning of
+ * each key and metric is kept. */
+public class QuantileCache {
+
+	/** The quantiles tracked in each bucket, as percentages: the median, then the lower and upper
+	 * quartiles. */
+	private static final double[] PERCENTILES= { 50, 25, 75 };
+
+	/** The entries of each result key. */
+	private final ConcurrentMap<ResultKey, List<Entry>> entries;
+
+	/** Constructs a new, empty quantile cache. */
+	public QuantileCache() {
+		super();
+
+		entries= new ConcurrentHashMap<>();
+	}
+
+	/** Returns the entry for the specified key, metric and binning, creating an empty entry if
+	 * necessary. Creating an entry drops the entry of the same key and metric with a different
+	 * binning. A new entry must be brought up to date with
+	 * {@link Entry#add(Accumulator, TracePyramid)} for every seed already stored under the key.
+	 *
+	 * @param key     the result key
+	 * @param metric  the metric
+	 * @param binning the NFE buckets
+	 * @return the entry for the key, metric and binning */
+	public Entry getEntry(ResultKey key, String metric, NFEBinning binning) {
+		List<Entry> list= entries.get(key);
+
+		if (list == null) {
+			List<Entry> newList= new CopyOnWriteArrayList<>();
+			list= entries.putIfAbsent(key, newList);
+
+			if (list == null) {
+				list= newList;
+			}
+		}
+
+		synchronized (list) {
+			Entry replaced= null;
+
+			for (Entry entry : list) {
+				if (entry.metric.equals(metric)) {
+					if (entry.binning.equals(binning)) { return entry; }
+
+					replaced= entry;
+				}
+			}
+
+			Entry entry= new Entry(metric, binning);
+			list.add(entry);
+
+			if (replaced != null) {
+				list.remove(replaced);
+			}
+
+			return entry;
+		}
+	}
+
+	/** Returns the entries of the specified key.
+	 *
+	 * @param key the result key
+	 * @return the entries of the key */
+	public List<Entry> getEntries(ResultKey key) {
+		List<Entry> list= entries.get(key);
+		return list == null ? Collections.<Entry> emptyList() : list;
+	}
+
+	/** Removes all entries. */
+	public void clear() {
+		entries.clear();
+	}
+
+	/** The bucketed quantiles of one metric across the seeds of one result key. */
+	public static class Entry {
+
+		/** The metric. */
+		private final String metric;
+
+		/** The NFE buckets. */
+		private final NFEBinning binning;
+
+		/** The seeds contained in this entry, by identity. */
+		private final Set<Accumulator> seeds;
+
+		/** The quantile estimator of each bucket; {@code null} elements are empty buckets. */
+		private QuantileEstimator[] buckets;
+
+		/** Constructs a new, empty entry.
+		 *
+		 * @param metric  the metric
+		 * @param binning the NFE buckets */
+		private Entry(String metric, NFEBinning binning) {
+			super();
+			this.metric= metric;
+			this.binning= binning;
+
+			seeds= Collections.newSetFromMap(new IdentityHashMap<Accumulator, Boolean>());
+			buckets= new QuantileEstimator[0];
+		}
+
+		/** Returns the metric of this entry.
+		 *
+		 * @return the metric of this entry */
+		public String getMetric() {
+			return metric;
+		}
+
+		/** Adds the samples of a seed to this entry, unless the seed was added before.
+		 *
+		 * @param accumulator the seed
+		 * @param trace       the trace of this entry's metric in the seed; or {@code null} if the
+		 *                    seed does not contain the metric */
+		public synchronized void add(Accumulator accumulator, TracePyramid trace) {
+			if (!seeds.add(accumulator) || trace == null || trace.size() == 0) { return; }
+
+			int last= binning.getBucket(trace.getMaximumNFE());
+
+			if (last >= buckets.length) {
+				buckets= Arrays.copyOf(buckets, Math.max(last + 1, 2 * buckets.length));
+			}
+
+			for (int i= 0; i < trace.size(); i++ ) {
+				int bucket= binning.getBucket(trace.getNFE(i));
+
+				if (buckets[bucket] == null) {
+					buckets[bucket]= new QuantileEstimator(PERCENTILES);
+				}
+
+				buckets[bucket].add(trace.getValue(i));
+			}
+		}
+
+		/** Returns the current quantiles of every non-empty bucket.
+		 *
+		 * @return the current quantiles of every non-empty bucket */
+		public synchronized Quantiles getQuantiles() {
+			int size= 0;
+
+			for (QuantileEstimator bucket : buckets) {
+				if (bucket != null && bucket.getN() > 0) {
+					size++ ;
+				}
+			}
+
+			int[] start= new int[size];
+			int[] nfe= new int[size];
+			double[][] values= new double[PERCENTILES.length][size];
+
+			for (int i= 0, j= 0; i < buckets.length; i++ ) {
+				if (buckets[i] != null && buckets[i].getN() > 0) {
+					start[j]= i > 0 ? binning.getNFE(i - 1) : 0;
+					nfe[j]= binning.getNFE(i);
+
+					for (int k= 0; k < PERCENTILES.length; k++ ) {
+						values[k][j]= buckets[i].getQuantile(k);
+					}
+
+					j++ ;
+				}
+			}
+
+			return new Quantiles(start, nfe, values[0], values[1], values[2]);
+		}
+
+	}
+
+	/** An immutable snapshot of the quantiles of the non-empty buckets of an entry, in increasing
+	 * NFE order. */
+	public static class Quantiles {
+
+		/** The lower NFE bound of each bucket. */
+		private final int[] start;
+
+		/** The upper NFE bound of each bucket. */
+		private final int[] nfe;
+
+		/** The median of each bucket. */
+		private final double[] median;
+
+		/** The lower quartile of each bucket. */
+		private final double[] lower;
+
+		/** The upper quartile of each bucket. */
+		private final double[] upper;
+
+		/** Constructs a new snapshot of quantiles. The arrays are stored without copying.
+		 *
+		 * @param start  the lower NFE bound of each bucket
+		 * @param nfe    the upper NFE bound of each bucket
+		 * @param median the median of each bucket
+		 * @param lower  the lower quartile of each bucket
+		 * @param upper  the upper quartile of each bucket */
+		private Quantiles(int[] start, int[] nfe, double[] median, double[] lower,
+			double[] upper) {
+			super();
+			this.start= start;
+			this.nfe= nfe;
+			this.median= median;
+			this.lower= lower;
+			this.upper= upper;
+		}
+
+		/** Returns the number of buckets.
+		 *
+		 * @return the number of buckets */
+		public int size() {
+			return nfe.length;
+		}
+
+		/** Returns the lower NFE bound of the specified bucket.
+		 *
+		 * @param index the index of the bucket
+		 * @return the lower NFE bound of the bucket */
+		public int getStartNFE(int index) {
+			return start[index];
+		}
+
+		/** Returns the upper NFE bound of the specified bucket.
+		 *
+		 * @param index the index of the bucket
+		 * @return the upper NFE bound of the bucket */
+		public int getNFE(int index) {
+			return nfe[index];
+		}
+
+		/** Returns the median of the specified bucket.
+		 *
+		 * @param index the index of the bucket
+		 * @return the median of the bucket */
+		public double getMedian(int index) {
+			return median[index];
+		}
+
+		/** Returns the lower quartile of the specified bucket.
+		 *
+		 * @param index the index of the bucket
+		 * @return the lower quartile of the bucket */
+		public double getLower(int index) {
+			return lower[index];
+		}
+
+		/** Returns the upper quartile of the specified bucket.
+		 *
+		 * @param index the index of the bucket
+		 * @return the upper quartile of the bucket */
+		public double getUpper(int index) {
+			return upper[index];
+		}
+
+	}
+
+}
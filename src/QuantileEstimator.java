@@ -0,0 +1,253 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.util.Arrays;
+
+/** Estimates several quantiles of a stream of values in a single pass. Up to
+ * {@value #EXACT_LIMIT} values are kept and the quantiles are computed exactly, giving the same
+ * result as {@code DescriptiveStatistics.getPercentile} with its default estimation. Beyond that
+ * the kept values are discarded and each quantile is tracked by the P&sup2; algorithm of Jain and
+ * Chlamtac, which needs five markers per quantile regardless of the number of values. {@code NaN}
+ * values are ignored. */
+public class QuantileEstimator {
+
+	/** The largest number of values for which the quantiles are computed exactly. */
+	public static final int EXACT_LIMIT= 1024;
+
+	/** The initial capacity of the buffer of kept values. */
+	private static final int INITIAL_CAPACITY= 16;
+
+	/** The estimated quantiles, as percentages in {@code (0, 100]}. */
+	private final double[] percentiles;
+
+	/** The number of values added. */
+	private long count;
+
+	/** The kept values; or {@code null} once the estimator switched to P&sup2;. */
+	private double[] values;
+
+	/** The kept values in sorted order; or {@code null} if not computed since the last value was
+	 * added. */
+	private double[] sorted;
+
+	/** The P&sup2; estimator of each quantile; or {@code null} while the values are kept. */
+	private Marker[] markers;
+
+	/** Constructs a new estimator of the specified quantiles.
+	 *
+	 * @param percentiles the quantiles to estimate, as percentages in {@code (0, 100]} */
+	public QuantileEstimator(double... percentiles) {
+		super();
+
+		for (double percentile : percentiles) {
+			if (percentile <= 0.0 || percentile > 100.0) {
+				throw new IllegalArgumentException("percentile must be in (0, 100]");
+			}
+		}
+
+		this.percentiles= percentiles.clone();
+		values= new double[INITIAL_CAPACITY];
+	}
+
+	/** Adds a value.
+	 *
+	 * @param value the value */
+	public void add(double value) {
+		if (Double.isNaN(value)) { return; }
+
+		if (markers != null) {
+			for (Marker marker : markers) {
+				marker.add(value);
+			}
+		} else if (count < EXACT_LIMIT) {
+			if (count == values.length) {
+				values= Arrays.copyOf(values, Math.min(2 * values.length, EXACT_LIMIT));
+			}
+
+			values[(int) count]= value;
+			sorted= null;
+		} else {
+			markers= new Marker[percentiles.length];
+
+			for (int i= 0; i < percentiles.length; i++ ) {
+				markers[i]= new Marker(percentiles[i] / 100.0, values, (int) count);
+				markers[i].add(value);
+			}
+
+			values= null;
+			sorted= null;
+		}
+
+		count++ ;
+	}
+
+	/** Returns the number of values added, not counting {@code NaN}s.
+	 *
+	 * @return the number of values added */
+	public long getN() {
+		return count;
+	}
+
+	/** Returns {@code true} if the quantiles are computed exactly; {@code false} if they are
+	 * estimated.
+	 *
+	 * @return {@code true} if the quantiles are computed exactly; {@code false} if they are
+	 *         estimated */
+	public boolean isExact() {
+		return markers == null;
+	}
+
+	/** Returns the specified quantile.
+	 *
+	 * @param index the index of the quantile, in the order given to the constructor
+	 * @return the quantile; or {@code NaN} if no values were added */
+	public double getQuantile(int index) {
+		if (count == 0) { return Double.NaN; }
+
+		if (markers != null) { return markers[index].getQuantile(); }
+
+		if (sorted == null) {
+			sorted= Arrays.copyOf(values, (int) count);
+			Arrays.sort(sorted);
+		}
+
+		// the legacy estimation of commons-math's Percentile
+		int n= sorted.length;
+		double position= percentiles[index] * (n + 1) / 100.0;
+		double floor= Math.floor(position);
+
+		if (position < 1.0) { return sorted[0]; }
+
+		if (position >= n) { return sorted[n - 1]; }
+
+		double lower= sorted[(int) floor - 1];
+		double upper= sorted[(int) floor];
+
+		return lower + (position - floor) * (upper - lower);
+	}
+
+	/** The five markers tracking one quantile with the P&sup2; algorithm. */
+	private static class Marker {
+
+		/** The heights of the markers, which estimate the minimum, the quantile halfway to the
+		 * tracked quantile, the tracked quantile, the quantile halfway to the maximum, and the
+		 * maximum. */
+		private final double[] heights;
+
+		/** The actual positions of the markers, counted from {@code 1}. */
+		private final double[] positions;
+
+		/** The desired positions of the markers. */
+		private final double[] desired;
+
+		/** The increments of the desired positions for each added value. */
+		private final double[] increments;
+
+		/** Constructs the markers of a quantile from the first values of the stream.
+		 *
+		 * @param p      the quantile, as a probability
+		 * @param values the first values of the stream
+		 * @param count  the number of values, which must be at least five */
+		public Marker(double p, double[] values, int count) {
+			super();
+
+			double[] first= Arrays.copyOf(values, 5);
+			Arrays.sort(first);
+
+			heights= first;
+			positions= new double[] { 1, 2, 3, 4, 5 };
+			desired= new double[] { 1, 1 + 2 * p, 1 + 4 * p, 3 + 2 * p, 5 };
+			increments= new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+
+			for (int i= 5; i < count; i++ ) {
+				add(values[i]);
+			}
+		}
+
+		/** Adds a value, moving the markers towards their desired positions.
+		 *
+		 * @param value the value */
+		public void add(double value) {
+			int cell;
+
+			if (value < heights[0]) {
+				heights[0]= value;
+				cell= 0;
+			} else if (value >= heights[4]) {
+				heights[4]= value;
+				cell= 3;
+			} else {
+				cell= 0;
+
+				while (value >= heights[cell + 1]) {
+					cell++ ;
+				}
+			}
+
+			for (int i= cell + 1; i < 5; i++ ) {
+				positions[i]++ ;
+			}
+
+			for (int i= 0; i < 5; i++ ) {
+				desired[i]+= increments[i];
+			}
+
+			for (int i= 1; i < 4; i++ ) {
+				double d= desired[i] - positions[i];
+
+				if ((d >= 1 && positions[i + 1] - positions[i] > 1) ||
+					(d <= -1 && positions[i - 1] - positions[i] < -1)) {
+					int sign= d > 0 ? 1 : -1;
+					double height= parabolic(i, sign);
+
+					if (heights[i - 1] < height && height < heights[i + 1]) {
+						heights[i]= height;
+					} else {
+						heights[i]+= sign * (heights[i + sign] - heights[i]) /
+							(positions[i + sign] - positions[i]);
+					}
+
+					positions[i]+= sign;
+				}
+			}
+		}
+
+		/** Returns the piecewise-parabolic prediction of a marker's height after moving it.
+		 *
+		 * @param i    the marker
+		 * @param sign the direction of the move, {@code 1} or {@code -1}
+		 * @return the predicted height of the marker */
+		private double parabolic(int i, int sign) {
+			return heights[i] + sign / (positions[i + 1] - positions[i - 1]) *
+				((positions[i] - positions[i - 1] + sign) * (heights[i + 1] - heights[i]) /
+					(positions[i + 1] - positions[i]) +
+					(positions[i + 1] - positions[i] - sign) * (heights[i] - heights[i - 1]) /
+						(positions[i] - positions[i - 1]));
+		}
+
+		/** Returns the estimate of the tracked quantile.
+		 *
+		 * @return the estimate of the tracked quantile */
+		public double getQuantile() {
+			return heights[2];
+		}
+
+	}
+
+}
@@ -0,0 +1,255 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.RendererChangeEvent;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRendererState;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.Range;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.xy.XYDataset;
+
+/** Scatter renderer for very large approximation sets. Datasets with fewer than
+ * {@value #RASTER_THRESHOLD} items are drawn as shapes, exactly as by an {@link XYLineAndShapeRenderer}
+ * showing only shapes. Larger datasets are splatted into an image, which is drawn in a single
+ * operation and rebuilt only when the dataset, the series paints, the axis ranges or the size of the
+ * data area change. Each point covers a small square of pixels in the paint of its series, with
+ * later series drawn on top, and the opacity of each pixel grows with the number of points covering
+ * it, so dense regions of the set stand out. No tooltips or chart entities are generated for
+ * rasterized datasets. */
+public class RasterScatterRenderer extends XYLineAndShapeRenderer implements DatasetChangeListener {
+
+	private static final long serialVersionUID= -3046021857345170394L;
+
+	/** The number of items from which a dataset is rasterized rather than drawn as shapes. */
+	public static final int RASTER_THRESHOLD= 10000;
+
+	/** The number of pixels a point extends from its center in each direction. */
+	private static final int POINT_RADIUS= 2;
+
+	/** The opacity of pixels covered by a single point, relative to the densest pixel. */
+	private static final double MINIMUM_ALPHA= 0.35;
+
+	/** {@code true} if the dataset being drawn is rasterized; {@code false} if it is drawn as
+	 * shapes. */
+	private transient boolean rasterized;
+
+	/** The dataset whose changes invalidate the cached image; or {@code null} if no dataset has been
+	 * drawn yet. */
+	private transient XYDataset observed;
+
+	/** The cached image of the rasterized dataset; or {@code null} if it must be rebuilt. */
+	private transient BufferedImage image;
+
+	/** The domain axis range for which the cached image was built. */
+	private transient Range imageDomain;
+
+	/** The range axis range for which the cached image was built. */
+	private transient Range imageRange;
+
+	/** The orientation of the plot for which the cached image was built. */
+	private transient PlotOrientation imageOrientation;
+
+	/** Constructs a new renderer drawing only shapes. */
+	public RasterScatterRenderer() {
+		super(false, true);
+	}
+
+	@Override
+	public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea, XYPlot plot,
+		XYDataset dataset, PlotRenderingInfo info) {
+		XYItemRendererState state= super.initialise(g2, dataArea, plot, dataset, info);
+
+		if (dataset != observed) {
+			if (observed != null) {
+				observed.removeChangeListener(this);
+			}
+
+			if (dataset != null) {
+				dataset.addChangeListener(this);
+			}
+
+			observed= dataset;
+			image= null;
+		}
+
+		rasterized= (dataset != null) && (getItemCount(dataset) >= RASTER_THRESHOLD);
+
+		if (rasterized) {
+			ValueAxis domainAxis= plot.getDomainAxisForDataset(plot.indexOf(dataset));
+			ValueAxis rangeAxis= plot.getRangeAxisForDataset(plot.indexOf(dataset));
+			int x= (int) Math.floor(dataArea.getX());
+			int y= (int) Math.floor(dataArea.getY());
+			int width= (int) Math.ceil(dataArea.getMaxX()) - x;
+			int height= (int) Math.ceil(dataArea.getMaxY()) - y;
+
+			if ((image == null) || (image.getWidth() != width) || (image.getHeight() != height) ||
+				!domainAxis.getRange().equals(imageDomain) || !rangeAxis.getRange().equals(imageRange) ||
+				(plot.getOrientation() != imageOrientation)) {
+				image= createImage(dataArea, plot, domainAxis, rangeAxis, dataset, x, y, width, height);
+				imageDomain= domainAxis.getRange();
+				imageRange= rangeAxis.getRange();
+				imageOrientation= plot.getOrientation();
+			}
+
+			if (image != null) {
+				g2.drawImage(image, x, y, null);
+			}
+		}
+
+		return state;
+	}
+
+	@Override
+	public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea,
+		PlotRenderingInfo info, XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis,
+		XYDataset dataset, int series, int item, CrosshairState crosshairState, int pass) {
+		//rasterized datasets are drawn as a whole when initialised
+		if (rasterized) { return; }
+
+		super.drawItem(g2, state, dataArea, info, plot, domainAxis, rangeAxis, dataset, series, item,
+			crosshairState, pass);
+	}
+
+	/** Returns the number of items in all visible series of the specified dataset.
+	 *
+	 * @param dataset the dataset
+	 * @return the number of items in all visible series of the dataset */
+	private int getItemCount(XYDataset dataset) {
+		int count= 0;
+
+		for (int i= 0; i < dataset.getSeriesCount(); i++ ) {
+			if (isSeriesVisible(i)) {
+				count+= dataset.getItemCount(i);
+			}
+		}
+
+		return count;
+	}
+
+	/** Splats the items of the specified dataset into a new image covering the data area.
+	 *
+	 * @param dataArea   the area within which the data is drawn
+	 * @param plot       the plot
+	 * @param domainAxis the domain axis
+	 * @param rangeAxis  the range axis
+	 * @param dataset    the dataset
+	 * @param x          the x coordinate of the top-left pixel of the image
+	 * @param y          the y coordinate of the top-left pixel of the image
+	 * @param width      the width of the image
+	 * @param height     the height of the image
+	 * @return the image; or {@code null} if the data area is empty */
+	private BufferedImage createImage(Rectangle2D dataArea, XYPlot plot, ValueAxis domainAxis,
+		ValueAxis rangeAxis, XYDataset dataset, int x, int y, int width, int height) {
+		if ((width <= 0) || (height <= 0)) { return null; }
+
+		boolean vertical= plot.getOrientation() == PlotOrientation.VERTICAL;
+		int[] counts= new int[width * height];
+		int[] colors= new int[width * height];
+		int maxCount= 0;
+
+		for (int i= 0; i < dataset.getSeriesCount(); i++ ) {
+			if (!isSeriesVisible(i)) {
+				continue;
+			}
+
+			int rgb= getRGB(lookupSeriesPaint(i));
+
+			for (int j= 0; j < dataset.getItemCount(i); j++ ) {
+				double xx= domainAxis.valueToJava2D(dataset.getXValue(i, j), dataArea,
+					plot.getDomainAxisEdge());
+				double yy= rangeAxis.valueToJava2D(dataset.getYValue(i, j), dataArea,
+					plot.getRangeAxisEdge());
+
+				if (Double.isNaN(xx) || Double.isNaN(yy)) {
+					continue;
+				}
+
+				double px= vertical ? xx : yy;
+				double py= vertical ? yy : xx;
+				int cx= (int) Math.floor(px) - x;
+				int cy= (int) Math.floor(py) - y;
+
+				for (int row= Math.max(cy - POINT_RADIUS, 0); row <= Math.min(cy + POINT_RADIUS,
+					height - 1); row++ ) {
+					for (int column= Math.max(cx - POINT_RADIUS, 0); column <= Math.min(cx +
+						POINT_RADIUS, width - 1); column++ ) {
+						int index= row * width + column;
+
+						counts[index]++ ;
+						colors[index]= rgb;
+						maxCount= Math.max(maxCount, counts[index]);
+					}
+				}
+			}
+		}
+
+		//shade each pixel by its density on a logarithmic scale, so sparse regions remain visible
+		double scale= Math.log1p(maxCount);
+
+		for (int i= 0; i < counts.length; i++ ) {
+			if (counts[i] > 0) {
+				double density= Math.log1p(counts[i]) / scale;
+				int alpha= (int) Math.round(255 * (MINIMUM_ALPHA + (1.0 - MINIMUM_ALPHA) * density));
+
+				colors[i]= (alpha << 24) | (colors[i] & 0xFFFFFF);
+			}
+		}
+
+		BufferedImage result= new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		result.setRGB(0, 0, width, height, colors, 0, width);
+		return result;
+	}
+
+	/** Returns the RGB value of the specified paint, using black for paints other than colors.
+	 *
+	 * @param paint the paint
+	 * @return the RGB value of the paint */
+	private static int getRGB(Paint paint) {
+		if (paint instanceof Color) {
+			return ((Color) paint).getRGB();
+		} else {
+			return Color.BLACK.getRGB();
+		}
+	}
+
+	@Override
+	public void datasetChanged(DatasetChangeEvent event) {
+		image= null;
+	}
+
+	@Override
+	public void notifyListeners(RendererChangeEvent event) {
+		//changes to the series paints or visibility invalidate the cached image
+		image= null;
+		super.notifyListeners(event);
+	}
+
+}
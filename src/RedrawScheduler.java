@@ -0,0 +1,180 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.Timer;
+
+/** Coalesces the refreshes requested by controller events into frames. Requests are collected for
+ * at least {@value #COALESCE_DELAY} milliseconds, and frames are at least {@value #FRAME_INTERVAL}
+ * milliseconds apart, so a burst of events during a run or a load refreshes each visible plot at
+ * most once per frame. Within a frame, requested tasks run first in the order they were requested,
+ * followed by the plot redraws. Requests made while a frame runs, such as the redraws of plots
+ * created by a task, are handled in the same frame. This class must only be used on the event
+ * dispatch thread. */
+public class RedrawScheduler {
+
+	/** The minimum time, in milliseconds, for which requests are collected before a frame. */
+	public static final int COALESCE_DELAY= 20;
+
+	/** The minimum time, in milliseconds, between the starts of two frames. */
+	public static final int FRAME_INTERVAL= 100;
+
+	/** The timer starting the next frame. */
+	private final Timer timer;
+
+	/** The tasks requested for the next frame. */
+	private final Set<Runnable> tasks;
+
+	/** The plots to redraw in the next frame. */
+	private final Set<ResultPlot> plots;
+
+	/** {@code true} while a frame is running; {@code false} otherwise. */
+	private boolean running;
+
+	/** The time, in milliseconds, at which the last frame started. */
+	private long lastFrame;
+
+	/** The number of tasks and redraws requested. */
+	private long requestCount;
+
+	/** The number of plots redrawn. */
+	private long redrawCount;
+
+	/** The number of frames run. */
+	private long frameCount;
+
+	/** Constructs a new redraw scheduler. */
+	public RedrawScheduler() {
+		super();
+
+		tasks= new LinkedHashSet<>();
+		plots= new LinkedHashSet<>();
+
+		timer= new Timer(COALESCE_DELAY, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				runFrame();
+			}
+
+		});
+
+		timer.setRepeats(false);
+	}
+
+	/** Requests a task to run in the next frame. Requesting the same task several times before the
+	 * frame runs it once.
+	 *
+	 * @param task the task */
+	public void requestTask(Runnable task) {
+		requestCount++ ;
+		tasks.add(task);
+		schedule();
+	}
+
+	/** Requests a plot to be redrawn in the next frame. Requesting the same plot several times
+	 * before the frame redraws it once, and plots that are no longer showing are skipped.
+	 *
+	 * @param plot the plot */
+	public void requestRedraw(ResultPlot plot) {
+		requestCount++ ;
+		plots.add(plot);
+		schedule();
+	}
+
+	/** Starts the timer for the next frame unless it is already running or a frame is running. */
+	private void schedule() {
+		if (!running && !timer.isRunning()) {
+			long delay= lastFrame + FRAME_INTERVAL - System.currentTimeMillis();
+
+			timer.setInitialDelay((int) Math.max(COALESCE_DELAY, Math.min(delay, FRAME_INTERVAL)));
+			timer.start();
+		}
+	}
+
+	/** Runs the requested tasks and redraws the requested plots. */
+	private void runFrame() {
+		lastFrame= System.currentTimeMillis();
+		frameCount++ ;
+		running= true;
+
+		try {
+			while (!tasks.isEmpty()) {
+				List<Runnable> pending= new ArrayList<>(tasks);
+				tasks.clear();
+
+				for (Runnable task : pending) {
+					task.run();
+				}
+			}
+
+			List<ResultPlot> redraws= new ArrayList<>(plots);
+			plots.clear();
+
+			for (ResultPlot plot : redraws) {
+				if (plot.isShowing()) {
+					redrawCount++ ;
+					plot.update();
+				}
+			}
+		} finally {
+			running= false;
+		}
+
+		// anything requested by the redraws waits for the next frame
+		if (!tasks.isEmpty() || !plots.isEmpty()) {
+			schedule();
+		}
+	}
+
+	/** Returns the number of tasks and redraws requested.
+	 *
+	 * @return the number of tasks and redraws requested */
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	/** Returns the number of plots redrawn.
+	 *
+	 * @return the number of plots redrawn */
+	public long getRedrawCount() {
+		return redrawCount;
+	}
+
+	/** Returns the number of frames run.
+	 *
+	 * @return the number of frames run */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/** Cancels the next frame, discarding all requests. */
+	public void stop() {
+		timer.stop();
+		tasks.clear();
+		plots.clear();
+	}
+
+}
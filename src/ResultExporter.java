@@ -0,0 +1,543 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.core.Solution;
+
+/** Exports the metric traces and final approximation sets of results for analysis in other tools.
+ * Seeds are exported one at a time as they are visited, so the exported results are never held in
+ * memory at once. Two formats are supported:
+ * <ul>
+ * <li>{@link Format#CSV} writes two tidy CSV files with one value per row. The trace file has the
+ * columns {@code algorithm,problem,parameterization,seed,index,NFE,metric,value}, and a sibling
+ * file with the suffix {@value #SETS_SUFFIX} has the columns
+ * {@code algorithm,problem,parameterization,seed,solution,objective,value}.</li>
+ * <li>{@link Format#COLUMNAR} writes a single binary file holding the same rows, stored column by
+ * column in chunks of up to {@value #CHUNK_ROWS} rows. The file starts with {@value #MAGIC} and
+ * {@value #VERSION}. Each chunk starts with its type ({@value #TRACE_CHUNK} for traces,
+ * {@value #SET_CHUNK} for approximation sets) and row count, followed by the columns {@code key},
+ * {@code seed}, {@code metric}, {@code index} as {@code int}s and {@code NFE}, {@code value} as
+ * {@code double}s for traces, or {@code key}, {@code seed}, {@code solution}, {@code objective} as
+ * {@code int}s and {@code value} as {@code double}s for approximation sets. The key and metric
+ * columns index into tables in the footer: the number of keys, then the algorithm, problem and
+ * parameterization of each key, then the number of metrics and the name of each metric. The file
+ * ends with the {@code long} offset of the footer and {@value #MAGIC}.</li>
+ * </ul>
+ * All values are written in big-endian order. A trace value without a matching {@code NFE} sample
+ * has an empty {@code NFE} in CSV files and {@code NaN} in columnar files. */
+public abstract class ResultExporter implements Closeable {
+
+	/** The magic number at the start and end of columnar files. */
+	public static final int MAGIC= 0x42444346;
+
+	/** The version of the columnar format. */
+	public static final int VERSION= 1;
+
+	/** The type of chunks holding trace rows. */
+	public static final int TRACE_CHUNK= 1;
+
+	/** The type of chunks holding approximation set rows. */
+	public static final int SET_CHUNK= 2;
+
+	/** The maximum number of rows in a chunk of a columnar file. */
+	public static final int CHUNK_ROWS= 65536;
+
+	/** The suffix of the CSV file holding approximation set rows, which replaces the extension of
+	 * the trace file. */
+	public static final String SETS_SUFFIX= "-sets.csv";
+
+	/** The formats supported by the exporter. */
+	public enum Format {
+
+		/** Tidy CSV files. */
+		CSV("csv"),
+
+		/** A chunked columnar binary file. */
+		COLUMNAR("col");
+
+		/** The file extension of this format, without the leading dot. */
+		private final String extension;
+
+		/** Constructs a new format.
+		 *
+		 * @param extension the file extension of this format, without the leading dot */
+		private Format(String extension) {
+			this.extension= extension;
+		}
+
+		/** Returns the file extension of this format, without the leading dot.
+		 *
+		 * @return the file extension of this format, without the leading dot */
+		public String getExtension() {
+			return extension;
+		}
+
+	}
+
+	/** The number of seeds written by this exporter. */
+	private long seedCount;
+
+	/** Constructs a new exporter. */
+	protected ResultExporter() {
+		super();
+	}
+
+	/** Creates an exporter writing to the specified file.
+	 *
+	 * @param file   the file, which for CSV is the trace file
+	 * @param format the format
+	 * @return the exporter writing to the file
+	 * @throws IOException if an I/O error occurred */
+	public static ResultExporter create(File file, Format format) throws IOException {
+		switch (format) {
+		case CSV:
+			return new CsvExporter(file, getSetsFile(file));
+		case COLUMNAR:
+			return new ColumnarExporter(file);
+		default:
+			throw new IllegalArgumentException("unknown format " + format);
+		}
+	}
+
+	/** Returns the CSV file holding the approximation set rows of the specified trace file.
+	 *
+	 * @param file the trace file
+	 * @return the CSV file holding the approximation set rows of the trace file */
+	public static File getSetsFile(File file) {
+		String name= file.getName();
+		int dot= name.lastIndexOf('.');
+
+		return new File(file.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) :
+			name) + SETS_SUFFIX);
+	}
+
+	/** Exports the results of the specified keys from a controller. Seeds of loaded session files
+	 * that have not yet been read are read one at a time and are not retained by the controller. If
+	 * the export fails or is cancelled, the partially written files are deleted.
+	 *
+	 * @param controller the controller storing the results
+	 * @param keys       the keys of the results to export
+	 * @param file       the file, which for CSV is the trace file
+	 * @param format     the format
+	 * @param progress   the progress of the export; or {@code null} if progress is not reported
+	 * @throws IOException if an I/O error occurred
+	 * @throws InterruptedIOException if the export was cancelled */
+	public static void export(Controller controller, List<ResultKey> keys, File file,
+		Format format, final TaskProgress progress) throws IOException {
+		long total= 0;
+
+		for (ResultKey key : keys) {
+			total+= controller.getSeedCount(key);
+		}
+
+		final long seeds= total;
+		boolean success= false;
+
+		try (final ResultExporter exporter= create(file, format)) {
+			for (ResultKey key : keys) {
+				controller.visit(key, new Controller.SeedVisitor() {
+
+					private int seed;
+
+					@Override
+					public void visit(ResultKey key, Accumulator accumulator) throws IOException {
+						if (progress != null && progress.isCancelled()) {
+							throw new InterruptedIOException("cancelled");
+						}
+
+						exporter.write(key, seed, accumulator);
+						seed++ ;
+
+						if (progress != null) {
+							progress.progressChanged(exporter.seedCount, seeds);
+						}
+					}
+
+				});
+			}
+
+			success= true;
+		} finally {
+			if (!success) {
+				file.delete();
+
+				if (format == Format.CSV) {
+					getSetsFile(file).delete();
+				}
+			}
+		}
+	}
+
+	/** Writes the metric traces and final approximation set of one seed. Every metric with numeric
+	 * values other than {@code NFE} is written as a trace.
+	 *
+	 * @param key         the result key of the seed
+	 * @param seed        the index of the seed within its key
+	 * @param accumulator the accumulator storing the seed's results
+	 * @throws IOException if an I/O error occurred */
+	public void write(ResultKey key, int seed, Accumulator accumulator) throws IOException {
+		int nfeSize= accumulator.keySet().contains("NFE") ? accumulator.size("NFE") : 0;
+
+		for (String metric : new TreeSet<>(accumulator.keySet())) {
+			int size= accumulator.size(metric);
+
+			if (metric.equals("NFE") || size == 0 ||
+				!(accumulator.get(metric, 0) instanceof Number)) {
+				continue;
+			}
+
+			for (int i= 0; i < size; i++ ) {
+				double nfe= i < nfeSize ? ((Number) accumulator.get("NFE", i)).doubleValue() :
+					Double.NaN;
+
+				writeTrace(key, seed, metric, i, nfe,
+					((Number) accumulator.get(metric, i)).doubleValue());
+			}
+		}
+
+		if (accumulator.keySet().contains("Approximation Set")) {
+			List<?> list= (List<?>) accumulator.get("Approximation Set",
+				accumulator.size("Approximation Set") - 1);
+
+			for (int i= 0; i < list.size(); i++ ) {
+				Solution solution= (Solution) list.get(i);
+
+				for (int j= 0; j < solution.getNumberOfObjectives(); j++ ) {
+					writeSolution(key, seed, i, j, solution.getObjective(j));
+				}
+			}
+		}
+
+		seedCount++ ;
+	}
+
+	/** Writes one trace row.
+	 *
+	 * @param key    the result key of the seed
+	 * @param seed   the index of the seed within its key
+	 * @param metric the metric
+	 * @param index  the index of the sample within the trace
+	 * @param nfe    the number of function evaluations of the sample; or {@code NaN} if unknown
+	 * @param value  the value of the sample
+	 * @throws IOException if an I/O error occurred */
+	protected abstract void writeTrace(ResultKey key, int seed, String metric, int index, double nfe,
+		double value) throws IOException;
+
+	/** Writes one approximation set row.
+	 *
+	 * @param key       the result key of the seed
+	 * @param seed      the index of the seed within its key
+	 * @param solution  the index of the solution within the final approximation set
+	 * @param objective the index of the objective
+	 * @param value     the value of the objective
+	 * @throws IOException if an I/O error occurred */
+	protected abstract void writeSolution(ResultKey key, int seed, int solution, int objective,
+		double value) throws IOException;
+
+	/** Exports results to tidy CSV files. */
+	private static class CsvExporter extends ResultExporter {
+
+		/** The writer of the trace file. */
+		private final Writer traces;
+
+		/** The writer of the approximation set file. */
+		private final Writer sets;
+
+		/** The reusable buffer for formatting rows. */
+		private final StringBuilder row;
+
+		/** The key whose columns are cached in {@link #keyColumns}. */
+		private ResultKey lastKey;
+
+		/** The escaped algorithm, problem and parameterization columns of {@link #lastKey}. */
+		private String keyColumns;
+
+		/** Constructs a new CSV exporter.
+		 *
+		 * @param traceFile the trace file
+		 * @param setFile   the approximation set file
+		 * @throws IOException if an I/O error occurred */
+		public CsvExporter(File traceFile, File setFile) throws IOException {
+			super();
+			row= new StringBuilder();
+			traces= open(traceFile);
+
+			try {
+				sets= open(setFile);
+			} catch (IOException e) {
+				traces.close();
+				throw e;
+			}
+
+			traces.write("algorithm,problem,parameterization,seed,index,NFE,metric,value\n");
+			sets.write("algorithm,problem,parameterization,seed,solution,objective,value\n");
+		}
+
+		/** Opens a buffered UTF-8 writer to the specified file.
+		 *
+		 * @param file the file
+		 * @return the writer
+		 * @throws IOException if an I/O error occurred */
+		private static Writer open(File file) throws IOException {
+			return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+				StandardCharsets.UTF_8), 1 << 16);
+		}
+
+		/** Starts a new row with the key and seed columns.
+		 *
+		 * @param key  the result key of the seed
+		 * @param seed the index of the seed within its key */
+		private void startRow(ResultKey key, int seed) {
+			if (key != lastKey) {
+				lastKey= key;
+				keyColumns= escape(key.getAlgorithm()) + ',' + escape(key.getProblem()) + ',' +
+					escape(key.getParameterization()) + ',';
+			}
+
+			row.setLength(0);
+			row.append(keyColumns).append(seed).append(',');
+		}
+
+		@Override
+		protected void writeTrace(ResultKey key, int seed, String metric, int index, double nfe,
+			double value) throws IOException {
+			startRow(key, seed);
+			row.append(index).append(',');
+
+			if (!Double.isNaN(nfe)) {
+				row.append(nfe == (long) nfe ? Long.toString((long) nfe) : Double.toString(nfe));
+			}
+
+			row.append(',').append(escape(metric)).append(',').append(value).append('\n');
+			traces.append(row);
+		}
+
+		@Override
+		protected void writeSolution(ResultKey key, int seed, int solution, int objective,
+			double value) throws IOException {
+			startRow(key, seed);
+			row.append(solution).append(',').append(objective).append(',').append(value)
+				.append('\n');
+			sets.append(row);
+		}
+
+		/** Quotes a CSV field if it contains a comma, quote or line break.
+		 *
+		 * @param field the field
+		 * @return the field, quoted if necessary */
+		private static String escape(String field) {
+			if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 &&
+				field.indexOf('\r') < 0) {
+				return field;
+			}
+
+			return '"' + field.replace("\"", "\"\"") + '"';
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				traces.close();
+			} finally {
+				sets.close();
+			}
+		}
+
+	}
+
+	/** Exports results to a chunked columnar binary file. */
+	private static class ColumnarExporter extends ResultExporter {
+
+		/** The underlying file stream, used to find the offset of the footer. */
+		private final FileOutputStream file;
+
+		/** The buffered output stream. */
+		private final DataOutputStream out;
+
+		/** The index of each key in the footer's key table. */
+		private final Map<ResultKey, Integer> keys;
+
+		/** The index of each metric in the footer's metric table. */
+		private final Map<String, Integer> metrics;
+
+		/** The integer columns of the current trace chunk: key, seed, metric and index. */
+		private final int[][] traceInts;
+
+		/** The floating-point columns of the current trace chunk: NFE and value. */
+		private final double[][] traceDoubles;
+
+		/** The number of rows in the current trace chunk. */
+		private int traceRows;
+
+		/** The integer columns of the current approximation set chunk: key, seed, solution and
+		 * objective. */
+		private final int[][] setInts;
+
+		/** The floating-point column of the current approximation set chunk: value. */
+		private final double[][] setDoubles;
+
+		/** The number of rows in the current approximation set chunk. */
+		private int setRows;
+
+		/** Constructs a new columnar exporter.
+		 *
+		 * @param output the output file
+		 * @throws IOException if an I/O error occurred */
+		public ColumnarExporter(File output) throws IOException {
+			super();
+			keys= new LinkedHashMap<>();
+			metrics= new LinkedHashMap<>();
+			traceInts= new int[4][CHUNK_ROWS];
+			traceDoubles= new double[2][CHUNK_ROWS];
+			setInts= new int[4][CHUNK_ROWS];
+			setDoubles= new double[1][CHUNK_ROWS];
+
+			file= new FileOutputStream(output);
+			out= new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+
+		/** Returns the index of the specified entry in a footer table, adding it if necessary.
+		 *
+		 * @param <T>   the type of entries
+		 * @param table the footer table
+		 * @param entry the entry
+		 * @return the index of the entry in the footer table */
+		private static <T> int indexOf(Map<T, Integer> table, T entry) {
+			Integer index= table.get(entry);
+
+			if (index == null) {
+				index= table.size();
+				table.put(entry, index);
+			}
+
+			return index;
+		}
+
+		@Override
+		protected void writeTrace(ResultKey key, int seed, String metric, int index, double nfe,
+			double value) throws IOException {
+			traceInts[0][traceRows]= indexOf(keys, key);
+			traceInts[1][traceRows]= seed;
+			traceInts[2][traceRows]= indexOf(metrics, metric);
+			traceInts[3][traceRows]= index;
+			traceDoubles[0][traceRows]= nfe;
+			traceDoubles[1][traceRows]= value;
+
+			if (++traceRows == CHUNK_ROWS) {
+				writeChunk(TRACE_CHUNK, traceRows, traceInts, traceDoubles);
+				traceRows= 0;
+			}
+		}
+
+		@Override
+		protected void writeSolution(ResultKey key, int seed, int solution, int objective,
+			double value) throws IOException {
+			setInts[0][setRows]= indexOf(keys, key);
+			setInts[1][setRows]= seed;
+			setInts[2][setRows]= solution;
+			setInts[3][setRows]= objective;
+			setDoubles[0][setRows]= value;
+
+			if (++setRows == CHUNK_ROWS) {
+				writeChunk(SET_CHUNK, setRows, setInts, setDoubles);
+				setRows= 0;
+			}
+		}
+
+		/** Writes a chunk, one column after another.
+		 *
+		 * @param type    the type of the chunk
+		 * @param rows    the number of rows in the chunk
+		 * @param ints    the integer columns
+		 * @param doubles the floating-point columns
+		 * @throws IOException if an I/O error occurred */
+		private void writeChunk(int type, int rows, int[][] ints, double[][] doubles)
+			throws IOException {
+			out.writeByte(type);
+			out.writeInt(rows);
+
+			for (int[] column : ints) {
+				for (int i= 0; i < rows; i++ ) {
+					out.writeInt(column[i]);
+				}
+			}
+
+			for (double[] column : doubles) {
+				for (int i= 0; i < rows; i++ ) {
+					out.writeDouble(column[i]);
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (traceRows > 0) {
+					writeChunk(TRACE_CHUNK, traceRows, traceInts, traceDoubles);
+				}
+
+				if (setRows > 0) {
+					writeChunk(SET_CHUNK, setRows, setInts, setDoubles);
+				}
+
+				out.flush();
+				long footer= file.getChannel().position();
+
+				out.writeInt(keys.size());
+
+				for (ResultKey key : keys.keySet()) {
+					out.writeUTF(key.getAlgorithm());
+					out.writeUTF(key.getProblem());
+					out.writeUTF(key.getParameterization());
+				}
+
+				out.writeInt(metrics.size());
+
+				for (String metric : metrics.keySet()) {
+					out.writeUTF(metric);
+				}
+
+				out.writeLong(footer);
+				out.writeInt(MAGIC);
+			} finally {
+				out.close();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,558 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.spi.ProblemFactory;
+
+/** Imports result and runtime files written by the MOEA Framework outside of the diagnostic tool.
+ * Each file is a sequence of entries separated by lines containing only {@code #}. An entry holds
+ * its properties on lines starting with {@code //}, in the format of {@link Properties}, and one
+ * solution per line with any decision variables followed by the objectives. Comment lines of the
+ * form {@code # Name = Value} describe the whole file. The number of objectives is taken from an
+ * {@code Objectives} comment or from the problem; if neither is known, every value on a solution
+ * line is an objective.
+ * <p>
+ * The key of each entry is taken from its {@code algorithm} and {@code problem} properties, or
+ * the file's {@code Algorithm} and {@code Problem} comments, falling back to defaults given to the
+ * importer. The parameterization is read from the same properties the controller passes to the
+ * {@code Executor}, such as {@code sbx.rate}, with missing parameters taken from the default
+ * parameterization. Consecutive entries form one seed until the key changes or the {@code NFE}
+ * property decreases, so a runtime file of several seeds is split back into its seeds. Entries
+ * without an {@code NFE} property are each imported as a seed with a single snapshot.
+ * <p>
+ * Every other numeric property of an entry, such as the operator probabilities, population and
+ * archive sizes, restarts and improvements recorded by the Borg MOEA, is imported as a metric of
+ * the same name, with {@code ElapsedTime} stored as {@code Elapsed Time}, so it can be plotted
+ * like the metrics collected by the tool. The parameters forming the result key are not.
+ * <p>
+ * Files are parsed in parallel and read as streams, so only the current seed of each file and a
+ * small batch of finished seeds are held before being added to the controller. */
+public class ResultImporter {
+
+	/** The number of finished seeds of a file added to the controller at once. */
+	private static final int BATCH_SEEDS= 32;
+
+	/** The properties read into the parameterization of the result key, which are not imported
+	 * as metrics. */
+	private static final Set<String> PARAMETER_PROPERTIES= new HashSet<>(Arrays.asList(
+		"sbx.rate", "sbx.distributionIndex", "pm.rate", "pm.distributionIndex",
+		"de.crossoverRate", "de.stepSize", "pm.stepSize", "um.rate", "spx.epsilon", "spx.parents",
+		"spx.offspring", "pcx.eta", "pcx.zeta", "pcx.parents", "pcx.offspring", "undx.zeta",
+		"undx.eta", "undx.parents", "undx.offspring"));
+
+	/** The controller receiving the imported seeds. */
+	private final Controller controller;
+
+	/** The algorithm of entries not naming their algorithm. */
+	private final String algorithm;
+
+	/** The problem of entries not naming their problem. */
+	private final String problem;
+
+	/** The parameterization providing parameters missing from entries. */
+	private final Parameterization defaults;
+
+	/** The number of objectives of each problem; or {@code -1} if the problem is not known, in which
+	 * case every value on a solution line is an objective. */
+	private final ConcurrentMap<String, Integer> objectiveCounts;
+
+	/** Constructs a new importer.
+	 *
+	 * @param controller the controller receiving the imported seeds
+	 * @param algorithm  the algorithm of entries not naming their algorithm
+	 * @param problem    the problem of entries not naming their problem
+	 * @param defaults   the parameterization providing parameters missing from entries */
+	public ResultImporter(Controller controller, String algorithm, String problem,
+		Parameterization defaults) {
+		super();
+		this.controller= controller;
+		this.algorithm= algorithm;
+		this.problem= problem;
+		this.defaults= defaults;
+
+		objectiveCounts= new ConcurrentHashMap<>();
+	}
+
+	/** Imports the specified files in parallel. Seeds are added to the controller in batches as
+	 * they are parsed, so seeds imported before an error or cancellation remain in the controller.
+	 *
+	 * @param files    the result or runtime files
+	 * @param progress the progress of the import; or {@code null} if progress is not reported
+	 * @return the number of seeds imported
+	 * @throws IOException if an I/O error occurred or a file is malformed
+	 * @throws InterruptedIOException if the import was cancelled */
+	public int importFiles(List<File> files, final TaskProgress progress) throws IOException {
+		long length= 0;
+
+		for (File file : files) {
+			length+= file.length();
+		}
+
+		final long totalLength= length;
+		final AtomicLong bytesRead= new AtomicLong();
+		List<Future<Integer>> futures= new ArrayList<>();
+
+		for (final File file : files) {
+			futures.add(SessionFormat.getExecutor().submit(new Callable<Integer>() {
+
+				@Override
+				public Integer call() throws IOException {
+					return new FileParser(file, bytesRead, totalLength, progress).parse();
+				}
+
+			}));
+		}
+
+		int seeds= 0;
+
+		try {
+			for (Future<Integer> future : futures) {
+				seeds+= future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+
+			throw new IOException(e.getCause());
+		} finally {
+			for (Future<Integer> future : futures) {
+				future.cancel(false);
+			}
+		}
+
+		return seeds;
+	}
+
+	/** Returns the number of objectives of the specified problem.
+	 *
+	 * @param problemName the name of the problem
+	 * @return the number of objectives of the problem; or {@code -1} if the problem is not known */
+	private int getNumberOfObjectives(String problemName) {
+		Integer count= objectiveCounts.get(problemName);
+
+		if (count == null) {
+			Problem problem= null;
+
+			try {
+				problem= ProblemFactory.getInstance().getProblem(problemName);
+				count= problem.getNumberOfObjectives();
+			} catch (RuntimeException e) {
+				count= -1;
+			} finally {
+				if (problem != null) {
+					problem.close();
+				}
+			}
+
+			objectiveCounts.putIfAbsent(problemName, count);
+		}
+
+		return count;
+	}
+
+	/** Returns the parameterization described by the properties of an entry.
+	 *
+	 * @param properties the properties of the entry
+	 * @return the parameterization described by the properties */
+	private Parameterization getParameterization(Properties properties) {
+		return new Parameterization(
+			getDouble(properties, "sbx.rate", defaults.sbxRate),
+			getDouble(properties, "sbx.distributionIndex", defaults.sbxDistributionIndex),
+			getDouble(properties, "pm.rate", defaults.pmRate),
+			getDouble(properties, "pm.distributionIndex", defaults.pmDistributionIndex),
+			getDouble(properties, "de.crossoverRate", defaults.deCrossoverRate),
+			getDouble(properties, "de.stepSize", getDouble(properties, "pm.stepSize",
+				defaults.deStepSize)),
+			getDouble(properties, "um.rate", defaults.umRate),
+			getDouble(properties, "spx.epsilon", defaults.spxEpsilon),
+			getInt(properties, "spx.parents", defaults.spxParents),
+			getInt(properties, "spx.offspring", defaults.spxOffspring),
+			getDouble(properties, "pcx.eta", defaults.pcxEta),
+			getDouble(properties, "pcx.zeta", defaults.pcxZeta),
+			getInt(properties, "pcx.parents", defaults.pcxParents),
+			getInt(properties, "pcx.offspring", defaults.pcxOffspring),
+			getDouble(properties, "undx.zeta", defaults.undxZeta),
+			getDouble(properties, "undx.eta", defaults.undxEta),
+			getInt(properties, "undx.parents", defaults.undxParents),
+			getInt(properties, "undx.offspring", defaults.undxOffspring));
+	}
+
+	/** Returns the value of a floating-point property.
+	 *
+	 * @param properties   the properties
+	 * @param name         the name of the property
+	 * @param defaultValue the value if the property is not set
+	 * @return the value of the property */
+	private static double getDouble(Properties properties, String name, double defaultValue) {
+		String value= properties.getProperty(name);
+		return value == null ? defaultValue : Double.parseDouble(value.trim());
+	}
+
+	/** Returns the value of an integer property. Integer properties written as floating-point
+	 * values, such as {@code 3.0}, are accepted.
+	 *
+	 * @param properties   the properties
+	 * @param name         the name of the property
+	 * @param defaultValue the value if the property is not set
+	 * @return the value of the property */
+	private static int getInt(Properties properties, String name, int defaultValue) {
+		String value= properties.getProperty(name);
+		return value == null ? defaultValue : (int) Double.parseDouble(value.trim());
+	}
+
+	/** Returns the numeric value of a property.
+	 *
+	 * @param value the value of the property
+	 * @return the numeric value; or {@code null} if the value is not a number */
+	private static Double parseNumber(String value) {
+		try {
+			return Double.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/** Parses one result or runtime file. */
+	private class FileParser {
+
+		/** The file. */
+		private final File file;
+
+		/** The number of bytes read from all files being imported. */
+		private final AtomicLong bytesRead;
+
+		/** The total length of all files being imported. */
+		private final long totalLength;
+
+		/** The progress of the import; or {@code null} if progress is not reported. */
+		private final TaskProgress progress;
+
+		/** The values of the {@code # Name = Value} comments read so far. */
+		private final Map<String, String> metadata;
+
+		/** The property lines of the current entry, without their {@code //} prefix. */
+		private final StringBuilder propertyLines;
+
+		/** The solutions of the current entry. */
+		private List<Solution> solutions;
+
+		/** The number of objectives of the current entry; or {@code null} if not yet looked up. */
+		private Integer entryObjectives;
+
+		/** The key of the current seed; or {@code null} if no seed has started. */
+		private ResultKey key;
+
+		/** The accumulator of the current seed; or {@code null} if no seed has started. */
+		private Accumulator accumulator;
+
+		/** The {@code NFE} of the last entry of the current seed. */
+		private int lastNFE;
+
+		/** The finished seeds not yet added to the controller. */
+		private Map<ResultKey, List<Accumulator>> batch;
+
+		/** The number of seeds in {@link #batch}. */
+		private int batchSize;
+
+		/** The number of seeds imported from the file. */
+		private int seedCount;
+
+		/** Constructs a new parser.
+		 *
+		 * @param file        the file
+		 * @param bytesRead   the number of bytes read from all files being imported
+		 * @param totalLength the total length of all files being imported
+		 * @param progress    the progress of the import; or {@code null} if progress is not
+		 *                    reported */
+		public FileParser(File file, AtomicLong bytesRead, long totalLength,
+			TaskProgress progress) {
+			super();
+			this.file= file;
+			this.bytesRead= bytesRead;
+			this.totalLength= totalLength;
+			this.progress= progress;
+
+			metadata= new HashMap<>();
+			propertyLines= new StringBuilder();
+			solutions= new ArrayList<>();
+			batch= new LinkedHashMap<>();
+		}
+
+		/** Parses the file, adding its seeds to the controller.
+		 *
+		 * @return the number of seeds imported from the file
+		 * @throws IOException if an I/O error occurred or the file is malformed */
+		public int parse() throws IOException {
+			int lineNumber= 0;
+
+			try (BufferedReader reader= new BufferedReader(new InputStreamReader(
+				new CountingInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+				String line;
+
+				while ((line= reader.readLine()) != null) {
+					lineNumber++ ;
+					line= line.trim();
+
+					if (line.isEmpty()) {
+						continue;
+					} else if (line.startsWith("//")) {
+						propertyLines.append(line, 2, line.length()).append('\n');
+					} else if (line.startsWith("#")) {
+						int index= line.indexOf('=');
+
+						if (index < 0) {
+							finishEntry();
+						} else {
+							metadata.put(line.substring(1, index).trim(),
+								line.substring(index + 1).trim());
+						}
+					} else {
+						parseSolution(line);
+					}
+				}
+
+				if (solutions.size() > 0 || propertyLines.length() > 0) {
+					finishEntry();
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException(file + ":" + lineNumber + ": invalid number " +
+					e.getMessage(), e);
+			}
+
+			finishSeed();
+			flush();
+
+			return seedCount;
+		}
+
+		/** Parses a solution line of the current entry. The objectives are the last values on the
+		 * line; any values before them encode decision variables and are ignored.
+		 *
+		 * @param line the solution line
+		 * @throws IOException if the line has too few values */
+		private void parseSolution(String line) throws IOException {
+			String[] tokens= line.split("\\s+");
+
+			if (entryObjectives == null) {
+				String objectives= metadata.get("Objectives");
+
+				entryObjectives= objectives != null ? Integer.parseInt(objectives) :
+					getNumberOfObjectives(getProblem(getProperties(false)));
+			}
+
+			int count= entryObjectives;
+
+			if (count < 0) {
+				count= tokens.length;
+			} else if (tokens.length < count) {
+				throw new IOException(file + ": solution has fewer than " + count + " objectives");
+			}
+
+			Solution solution= new Solution(0, count);
+
+			for (int i= 0; i < count; i++ ) {
+				solution.setObjective(i, Double.parseDouble(tokens[tokens.length - count + i]));
+			}
+
+			solutions.add(solution);
+		}
+
+		/** Returns the properties of the current entry read so far.
+		 *
+		 * @param complete {@code true} if the entry is complete; {@code false} otherwise
+		 * @return the properties of the current entry read so far
+		 * @throws IOException if the properties are malformed */
+		private Properties getProperties(boolean complete) throws IOException {
+			Properties properties= new Properties();
+			properties.load(new StringReader(propertyLines.toString()));
+
+			if (complete) {
+				propertyLines.setLength(0);
+			}
+
+			return properties;
+		}
+
+		/** Returns the problem of an entry.
+		 *
+		 * @param properties the properties of the entry
+		 * @return the problem of the entry */
+		private String getProblem(Properties properties) {
+			String name= properties.getProperty("problem", metadata.get("Problem"));
+			return name == null ? problem : name;
+		}
+
+		/** Adds the current entry to the current seed, or starts a new seed if the entry belongs to
+		 * a different key or its {@code NFE} decreased.
+		 *
+		 * @throws IOException if an I/O error occurred or the import was cancelled */
+		private void finishEntry() throws IOException {
+			Properties properties= getProperties(true);
+
+			String algorithmName= properties.getProperty("algorithm", metadata.get("Algorithm"));
+			ResultKey entryKey= new ResultKey(algorithmName == null ? algorithm : algorithmName,
+				getProblem(properties), ParameterizationRegistry.getInstance().register(
+					getParameterization(properties)));
+
+			String nfe= properties.getProperty("NFE");
+
+			if (nfe == null || !entryKey.equals(key) || Integer.parseInt(nfe.trim()) < lastNFE) {
+				finishSeed();
+				key= entryKey;
+				accumulator= new Accumulator();
+			}
+
+			lastNFE= nfe == null ? getInt(properties, "maxEvaluations", 0) :
+				Integer.parseInt(nfe.trim());
+
+			accumulator.add("NFE", lastNFE);
+
+			for (String name : properties.stringPropertyNames()) {
+				if (name.equals("NFE") || PARAMETER_PROPERTIES.contains(name)) {
+					continue;
+				}
+
+				Double value= parseNumber(properties.getProperty(name));
+
+				if (value != null) {
+					addMetric(name.equals("ElapsedTime") ? "Elapsed Time" : name, value);
+				}
+			}
+
+			accumulator.add("Approximation Set", new ArrayList<>(solutions));
+			solutions= new ArrayList<>();
+			entryObjectives= null;
+
+			if (progress != null) {
+				if (progress.isCancelled()) { throw new InterruptedIOException("cancelled"); }
+
+				progress.progressChanged(bytesRead.get(), totalLength);
+			}
+		}
+
+		/** Adds the value of a metric to the current entry. Metrics are matched to the NFE by
+		 * index, so a metric missing from an earlier entry of the seed is not added, which would
+		 * shift its values onto the wrong NFE.
+		 *
+		 * @param metric the metric
+		 * @param value  the value of the metric */
+		private void addMetric(String metric, Double value) {
+			int size= accumulator.keySet().contains(metric) ? accumulator.size(metric) : 0;
+
+			if (size == accumulator.size("NFE") - 1) {
+				accumulator.add(metric, value);
+			}
+		}
+
+		/** Moves the current seed, if any, to the batch of finished seeds, adding the batch to the
+		 * controller once full. */
+		private void finishSeed() {
+			if (accumulator == null) { return; }
+
+			List<Accumulator> list= batch.get(key);
+
+			if (list == null) {
+				list= new ArrayList<>();
+				batch.put(key, list);
+			}
+
+			list.add(accumulator);
+			accumulator= null;
+			seedCount++ ;
+
+			if (++batchSize == BATCH_SEEDS) {
+				flush();
+			}
+		}
+
+		/** Adds the batch of finished seeds to the controller. */
+		private void flush() {
+			if (batchSize > 0) {
+				controller.addAll(batch);
+				batch= new LinkedHashMap<>();
+				batchSize= 0;
+			}
+		}
+
+		/** An input stream adding the number of bytes read to the total of all files. */
+		private class CountingInputStream extends FilterInputStream {
+
+			/** Constructs a new counting input stream.
+			 *
+			 * @param in the underlying input stream */
+			public CountingInputStream(InputStream in) {
+				super(in);
+			}
+
+			@Override
+			public int read() throws IOException {
+				int b= super.read();
+
+				if (b >= 0) {
+					bytesRead.incrementAndGet();
+				}
+
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n= super.read(b, off, len);
+
+				if (n > 0) {
+					bytesRead.addAndGet(n);
+				}
+
+				return n;
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,506 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Codec;
+
+/** An append-only journal of finished seeds, allowing results to be recovered after a crash.
+ * <p>
+ * Each record stores one seed's result key and accumulator, encoded and compressed as a session
+ * block, prefixed by its length and CRC-32 checksum. Records are appended by a single background
+ * thread, so {@link #append(ResultKey, Accumulator)} never blocks the caller. The thread writes
+ * every record queued since its last write in one batch and then forces the batch to disk, so a
+ * burst of seeds costs a single {@code fsync}. When recovering, records are replayed up to the
+ * first record that is incomplete or fails its checksum.
+ * <p>
+ * The journal file is locked while open, so only one instance of the diagnostic tool journals to
+ * a file at a time. */
+public class ResultJournal implements Closeable {
+
+	/** The magic number identifying journal files. */
+	public static final int MAGIC= 0x42444a4c;
+
+	/** The version of the journal format. */
+	public static final int VERSION= 1;
+
+	/** The length of the journal header in bytes. */
+	private static final int HEADER_LENGTH= 8;
+
+	/** The codec used to compress records, favoring speed over size. */
+	private static final Codec CODEC= Codec.DEFLATE_FAST;
+
+	/** The queue item requesting the journal be truncated. */
+	private static final Object CLEAR= new Object();
+
+	/** The queue item requesting the writer thread stop. */
+	private static final Object CLOSE= new Object();
+
+	/** The handler receiving the records replayed by
+	 * {@link ResultJournal#replay(ResultJournal.Handler)}. */
+	public interface Handler {
+
+		/** Called when a record has been replayed.
+		 *
+		 * @param key         the result key of the seed
+		 * @param accumulator the accumulator storing the seed */
+		public void recordRead(ResultKey key, Accumulator accumulator);
+
+	}
+
+	/** The handler notified when writing the journal fails. */
+	public interface FailureHandler {
+
+		/** Called on the writer thread when writing the journal failed. No further seeds are
+		 * written.
+		 *
+		 * @param e the exception that caused the failure */
+		public void journalFailed(IOException e);
+
+	}
+
+	/** A seed waiting to be written to the journal. */
+	private static class Entry {
+
+		/** The result key of the seed. */
+		private final ResultKey key;
+
+		/** The accumulator storing the seed. */
+		private final Accumulator accumulator;
+
+		/** Constructs a new seed waiting to be written to the journal.
+		 *
+		 * @param key         the result key of the seed
+		 * @param accumulator the accumulator storing the seed */
+		public Entry(ResultKey key, Accumulator accumulator) {
+			super();
+			this.key= key;
+			this.accumulator= accumulator;
+		}
+
+	}
+
+	/** The journal file. */
+	private final File file;
+
+	/** The handler notified when writing the journal fails; or {@code null} if failures are not
+	 * reported. */
+	private final FailureHandler failureHandler;
+
+	/** The open journal file. */
+	private final RandomAccessFile raf;
+
+	/** The lock held on the journal file while it is open. */
+	private final FileLock lock;
+
+	/** The items waiting to be written by the writer thread. */
+	private final BlockingQueue<Object> queue;
+
+	/** The length of the journal up to the end of the last valid record. */
+	private long validLength;
+
+	/** The number of valid records in the journal. */
+	private int recordCount;
+
+	/** The writer thread; or {@code null} if the journal has not been started. */
+	private Thread thread;
+
+	/** {@code true} if writing the journal failed and further records are discarded; {@code false}
+	 * otherwise. */
+	private volatile boolean failed;
+
+	/** Opens a journal file, creating it if it does not exist, and locates the valid records left
+	 * by a previous session. Nothing is written until {@link #start(boolean)} is called.
+	 *
+	 * @param file           the journal file
+	 * @param failureHandler the handler notified when writing the journal fails; or {@code null}
+	 *                       if failures are not reported
+	 * @throws IOException if an I/O error occurred or the journal is in use by another instance */
+	public ResultJournal(File file, FailureHandler failureHandler) throws IOException {
+		super();
+		this.file= file;
+		this.failureHandler= failureHandler;
+
+		raf= new RandomAccessFile(file, "rw");
+		queue= new LinkedBlockingQueue<>();
+
+		try {
+			lock= tryLock();
+
+			if (lock == null) {
+				throw new IOException("The journal " + file + " is in use by another instance.");
+			}
+
+			scan();
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/** Attempts to lock the journal file.
+	 *
+	 * @return the lock; or {@code null} if the file is locked by another instance
+	 * @throws IOException if an I/O error occurred */
+	private FileLock tryLock() throws IOException {
+		try {
+			return raf.getChannel().tryLock();
+		} catch (OverlappingFileLockException e) {
+			// locked by another instance within this virtual machine
+			return null;
+		}
+	}
+
+	/** Returns the default journal file, located in the user's home directory.
+	 *
+	 * @return the default journal file */
+	public static File getDefaultFile() {
+		return new File(System.getProperty("user.home"), ".diagnostic-tool.journal");
+	}
+
+	/** Returns the journal file.
+	 *
+	 * @return the journal file */
+	public File getFile() {
+		return file;
+	}
+
+	/** Returns the number of valid records left by a previous session.
+	 *
+	 * @return the number of valid records left by a previous session */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/** Replays the valid records left by a previous session. This must be called before
+	 * {@link #start(boolean)}.
+	 *
+	 * @param handler the handler receiving the records
+	 * @throws IOException if an I/O error occurred */
+	public void replay(Handler handler) throws IOException {
+		DataInputStream in= openRecords();
+
+		for (int i= 0; i < recordCount; i++ ) {
+			byte[] payload= readRecord(in);
+			DataInputStream record= new DataInputStream(new ByteArrayInputStream(payload));
+			String algorithm= record.readUTF();
+			String problem= record.readUTF();
+			String parameterization= record.readUTF();
+			int length= record.readInt();
+			byte[] encoding= null;
+
+			if (length >= 0) {
+				encoding= new byte[length];
+				record.readFully(encoding);
+			}
+
+			int rawLength= record.readInt();
+			byte[] data= new byte[record.available()];
+
+			record.readFully(data);
+
+			handler.recordRead(new ResultKey(algorithm, problem,
+				ParameterizationRegistry.getInstance().register(parameterization, encoding)),
+				SessionFormat.decode(CODEC.decompress(data, rawLength)));
+		}
+	}
+
+	/** Starts the writer thread. Any incomplete record at the end of the journal is discarded.
+	 *
+	 * @param keep {@code true} if the valid records left by a previous session are kept, typically
+	 *             because they were recovered; {@code false} if the journal is emptied
+	 * @throws IOException if an I/O error occurred */
+	public synchronized void start(boolean keep) throws IOException {
+		if (thread != null) { return; }
+
+		FileChannel channel= raf.getChannel();
+
+		if (keep && recordCount > 0) {
+			channel.truncate(validLength);
+		} else {
+			ByteBuffer header= ByteBuffer.allocate(HEADER_LENGTH);
+			header.putInt(MAGIC).putInt(VERSION).flip();
+
+			channel.truncate(0);
+			channel.write(header, 0);
+			channel.force(false);
+			recordCount= 0;
+		}
+
+		channel.position(channel.size());
+
+		thread= new Thread("result-journal") {
+
+			@Override
+			public void run() {
+				writeLoop();
+			}
+
+		};
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Queues a finished seed for writing to the journal. This method never blocks.
+	 *
+	 * @param key         the result key of the seed
+	 * @param accumulator the accumulator storing the seed */
+	public void append(ResultKey key, Accumulator accumulator) {
+		if (!failed) {
+			queue.offer(new Entry(key, accumulator));
+		}
+	}
+
+	/** Empties the journal once all previously queued seeds have been handled. This method never
+	 * blocks. */
+	public void clear() {
+		queue.offer(CLEAR);
+	}
+
+	/** Writes all queued seeds and closes the journal, keeping the file so the seeds can be
+	 * recovered.
+	 *
+	 * @throws IOException if an I/O error occurred */
+	@Override
+	public void close() throws IOException {
+		close(false);
+	}
+
+	/** Writes all queued seeds and closes the journal.
+	 *
+	 * @param delete {@code true} if the journal file is deleted after closing, as on a clean exit;
+	 *               {@code false} otherwise
+	 * @throws IOException if an I/O error occurred */
+	public synchronized void close(boolean delete) throws IOException {
+		if (thread != null) {
+			queue.offer(CLOSE);
+
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			thread= null;
+		}
+
+		try {
+			lock.release();
+		} finally {
+			raf.close();
+		}
+
+		if (delete && !file.delete()) {
+			throw new IOException("unable to delete the journal " + file);
+		}
+	}
+
+	/** Writes queued items until the journal is closed. Each batch of items is forced to disk
+	 * before the next batch is taken. */
+	private void writeLoop() {
+		FileChannel channel= raf.getChannel();
+		List<Object> batch= new ArrayList<>();
+		boolean closing= false;
+
+		while (!closing) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				continue;
+			}
+
+			queue.drainTo(batch);
+
+			try {
+				ByteArrayOutputStream buffer= new ByteArrayOutputStream();
+
+				for (Object item : batch) {
+					if (item == CLOSE) {
+						closing= true;
+					} else if (item == CLEAR) {
+						write(channel, buffer);
+						channel.truncate(HEADER_LENGTH);
+						channel.position(HEADER_LENGTH);
+					} else if (!failed) {
+						writeRecord(buffer, (Entry) item);
+					}
+				}
+
+				write(channel, buffer);
+				channel.force(false);
+			} catch (IOException e) {
+				// stop journaling rather than interrupt the session; later seeds are discarded
+				// as they are taken, and a close in the failed batch is still honoured
+				failed= true;
+				closing= batch.contains(CLOSE);
+
+				if (failureHandler != null) {
+					failureHandler.journalFailed(e);
+				}
+			}
+
+			batch.clear();
+		}
+	}
+
+	/** Writes and empties the buffered records.
+	 *
+	 * @param channel the journal file channel
+	 * @param buffer  the buffered records
+	 * @throws IOException if an I/O error occurred */
+	private void write(FileChannel channel, ByteArrayOutputStream buffer) throws IOException {
+		ByteBuffer data= ByteBuffer.wrap(buffer.toByteArray());
+
+		while (data.hasRemaining()) {
+			channel.write(data);
+		}
+
+		buffer.reset();
+	}
+
+	/** Encodes a record, prefixed by its length and checksum.
+	 *
+	 * @param buffer the buffer receiving the record
+	 * @param entry  the seed stored in the record
+	 * @throws IOException if an I/O error occurred */
+	private void writeRecord(ByteArrayOutputStream buffer, Entry entry) throws IOException {
+		byte[] data= SessionFormat.encode(entry.accumulator);
+		ByteArrayOutputStream payload= new ByteArrayOutputStream();
+		DataOutputStream out= new DataOutputStream(payload);
+
+		out.writeUTF(entry.key.getAlgorithm());
+		out.writeUTF(entry.key.getProblem());
+		out.writeUTF(entry.key.getParameterization());
+
+		byte[] encoding= ParameterizationRegistry.getInstance().getEncoding(
+			entry.key.getParameterizationId());
+
+		out.writeInt(encoding == null ? -1 : encoding.length);
+
+		if (encoding != null) {
+			out.write(encoding);
+		}
+
+		out.writeInt(data.length);
+		out.write(CODEC.compress(data));
+		out.close();
+
+		CRC32 crc= new CRC32();
+		crc.update(payload.toByteArray());
+
+		DataOutputStream record= new DataOutputStream(buffer);
+		record.writeInt(payload.size());
+		record.writeInt((int) crc.getValue());
+		payload.writeTo(record);
+		record.flush();
+	}
+
+	/** Counts the valid records in the journal and locates the end of the last valid record. A
+	 * file without a valid header has no records.
+	 *
+	 * @throws IOException if an I/O error occurred */
+	private void scan() throws IOException {
+		validLength= 0;
+		recordCount= 0;
+
+		if (raf.length() < HEADER_LENGTH) { return; }
+
+		DataInputStream in= openRecords();
+
+		if (in == null) { return; }
+
+		validLength= HEADER_LENGTH;
+
+		while (true) {
+			try {
+				byte[] payload= readRecord(in);
+
+				validLength+= 8 + payload.length;
+				recordCount++;
+			} catch (IOException e) {
+				// the first incomplete or corrupt record ends the journal
+				break;
+			}
+		}
+	}
+
+	/** Opens a stream positioned at the first record, after checking the header.
+	 *
+	 * @return the stream positioned at the first record; or {@code null} if the header is not
+	 *         valid
+	 * @throws IOException if an I/O error occurred */
+	private DataInputStream openRecords() throws IOException {
+		FileChannel channel= raf.getChannel();
+		channel.position(0);
+
+		DataInputStream in= new DataInputStream(new BufferedInputStream(
+			Channels.newInputStream(channel)));
+
+		if (in.readInt() != MAGIC || in.readInt() > VERSION) { return null; }
+
+		return in;
+	}
+
+	/** Reads the payload of the next record, verifying its checksum.
+	 *
+	 * @param in the stream positioned at the record
+	 * @return the payload of the record
+	 * @throws IOException if the record is incomplete or fails its checksum */
+	private byte[] readRecord(DataInputStream in) throws IOException {
+		int length= in.readInt();
+		int checksum= in.readInt();
+
+		if (length < 0 || length > raf.length()) {
+			throw new IOException("corrupt journal record");
+		}
+
+		byte[] payload= new byte[length];
+		in.readFully(payload);
+
+		CRC32 crc= new CRC32();
+		crc.update(payload);
+
+		if ((int) crc.getValue() != checksum) {
+			throw new IOException("journal record failed its checksum");
+		}
+
+		return payload;
+	}
+
+}
@@ -17,26 +17,39 @@
  */
 package org.moeaframework.analysis.diagnostics;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
-import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
 /** The key for a result entry, allowing distinct algorithm, problem, and parameterization pairings
- * in sets and maps. */
+ * in sets and maps. The parameterization is stored as its identifier in the
+ * {@link ParameterizationRegistry} and the algorithm and problem names are interned, so hashing,
+ * equality, and ordering never inspect the parameterization string. */
 public class ResultKey implements Comparable<ResultKey>, Serializable {
 
 	private static final long serialVersionUID= 8819746159439155038L;
 
+	/** The serialized fields, which keep the original layout so previously saved files can still
+	 * be read. */
+	private static final ObjectStreamField[] serialPersistentFields= {
+		new ObjectStreamField("algorithm", String.class),
+		new ObjectStreamField("problem", String.class),
+		new ObjectStreamField("parameterization", String.class)
+	};
+
 	/** The algorithm represented by this result key. */
-	private final String algorithm;
+	private transient String algorithm;
 
 	/** The problem represented by this result key. */
-	private final String problem;
+	private transient String problem;
+
+	/** The identifier of the parameterization represented by this result key. */
+	private transient int parameterization;
 
-	/** The parameterization represented by this result key. */
-	private final String parameterization;
+	/** The cached hash code of this result key. */
+	private transient int hash;
 
 	/** Constructs a new result key with the specified algorithm, problem, and parameterization.
 	 *
@@ -44,10 +57,36 @@ public class ResultKey implements Comparable<ResultKey>, Serializable {
 	 * @param problem          the problem represented by this result key
 	 * @param parameterization the parameterization string represented by this result key */
 	public ResultKey(String algorithm, String problem, String parameterization) {
+		this(algorithm, problem,
+			ParameterizationRegistry.getInstance().register(parameterization));
+	}
+
+	/** Constructs a new result key with the specified algorithm, problem, and parameterization
+	 * identifier.
+	 *
+	 * @param algorithm        the algorithm represented by this result key
+	 * @param problem          the problem represented by this result key
+	 * @param parameterization the identifier of the parameterization in the
+	 *                         {@link ParameterizationRegistry} */
+	public ResultKey(String algorithm, String problem, int parameterization) {
 		super();
-		this.algorithm= algorithm;
-		this.problem= problem;
+		initialize(algorithm, problem, parameterization);
+	}
+
+	/** Assigns the fields of this result key and computes its hash code.
+	 *
+	 * @param algorithm        the algorithm represented by this result key
+	 * @param problem          the problem represented by this result key
+	 * @param parameterization the identifier of the parameterization */
+	private void initialize(String algorithm, String problem, int parameterization) {
+		this.algorithm= algorithm == null ? null : algorithm.intern();
+		this.problem= problem == null ? null : problem.intern();
 		this.parameterization= parameterization;
+
+		int result= parameterization;
+		result= 31 * result + (this.algorithm == null ? 0 : this.algorithm.hashCode());
+		result= 31 * result + (this.problem == null ? 0 : this.problem.hashCode());
+		hash= result;
 	}
 
 	/** Returns the algorithm represented by this result key.
@@ -64,29 +103,57 @@ public class ResultKey implements Comparable<ResultKey>, Serializable {
 		return problem;
 	}
 
-	/** Returns the parameterization number represented by this result key.
+	/** Returns the parameterization string represented by this result key.
 	 *
-	 * @return the parameterization number by this result key. */
+	 * @return the parameterization string represented by this result key. */
 	public String getParameterization() {
+		return ParameterizationRegistry.getInstance().getString(parameterization);
+	}
+
+	/** Returns the identifier of the parameterization represented by this result key.
+	 *
+	 * @return the identifier of the parameterization in the {@link ParameterizationRegistry} */
+	public int getParameterizationId() {
 		return parameterization;
 	}
 
 	@Override
 	public int compareTo(ResultKey rhs) {
-		return new CompareToBuilder()
-			.append(algorithm, rhs.algorithm)
-			.append(problem, rhs.problem)
-			.append(parameterization, rhs.parameterization)
-			.toComparison();
+		int result= compare(algorithm, rhs.algorithm);
+
+		if (result == 0) {
+			result= compare(problem, rhs.problem);
+		}
+
+		if (result == 0) {
+			result= Integer.compare(parameterization, rhs.parameterization);
+		}
+
+		return result;
+	}
+
+	/** Compares two interned, possibly {@code null}, strings. Identical references are detected
+	 * without comparing characters.
+	 *
+	 * @param lhs the first string
+	 * @param rhs the second string
+	 * @return a negative, zero, or positive value if {@code lhs} is less than, equal to, or greater
+	 *         than {@code rhs} */
+	private static int compare(String lhs, String rhs) {
+		if (lhs == rhs) {
+			return 0;
+		} else if (lhs == null) {
+			return -1;
+		} else if (rhs == null) {
+			return 1;
+		} else {
+			return lhs.compareTo(rhs);
+		}
 	}
 
 	@Override
 	public int hashCode() {
-		return new HashCodeBuilder()
-			.append(algorithm)
-			.append(problem)
-			.append(parameterization)
-			.toHashCode();
+		return hash;
 	}
 
 	@Override
@@ -98,14 +165,41 @@ public class ResultKey implements Comparable<ResultKey>, Serializable {
 		} else {
 			ResultKey rhs= (ResultKey) obj;
 
-			return new EqualsBuilder()
-				.append(algorithm, rhs.algorithm)
-				.append(problem, rhs.problem)
-				.append(parameterization, rhs.parameterization)
-				.isEquals();
+			return hash == rhs.hash &&
+				parameterization == rhs.parameterization &&
+				algorithm == rhs.algorithm &&
+				problem == rhs.problem;
 		}
 	}
 
+	/** Writes this result key using the original serialized field layout.
+	 *
+	 * @param out the stream to which this result key is written
+	 * @throws IOException if an I/O error occurred */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields= out.putFields();
+		fields.put("algorithm", algorithm);
+		fields.put("problem", problem);
+		fields.put("parameterization", getParameterization());
+		out.writeFields();
+	}
+
+	/** Reads a result key, registering its parameterization string.
+	 *
+	 * @param in the stream from which this result key is read
+	 * @throws IOException            if an I/O error occurred
+	 * @throws ClassNotFoundException if a serialized class could not be found */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields= in.readFields();
+		String parameterization= (String) fields.get("parameterization", null);
+
+		initialize(
+			(String) fields.get("algorithm", null),
+			(String) fields.get("problem", null),
+			ParameterizationRegistry.getInstance().register(
+				parameterization == null ? "" : parameterization));
+	}
+
 	@Override
 	public String toString() {
 		return algorithm + " " + problem;
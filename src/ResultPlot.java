@@ -19,18 +19,56 @@ package org.moeaframework.analysis.diagnostics;
 
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * Abstract Swing component for displaying results.  The specific implementation
  * determines the type of plot.  The results displayed in the plot are
  * specified by {@link DiagnosticTool#getSelectedResults()}.
+ * <p>
+ * The data shown by a plot is prepared on a background thread, and only the
+ * resulting chart is installed on the event dispatch thread.  Each update is
+ * numbered, and an update superseded by a newer one is abandoned before its
+ * chart is installed.
  */
 public abstract class ResultPlot extends JPanel implements ControllerListener, 
 HierarchyListener {
 
 	private static final long serialVersionUID = -4484341164088815299L;
+	
+	/**
+	 * The executor preparing plot data, shared by all plots.
+	 */
+	private static final ExecutorService EXECUTOR = 
+			Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "plot-update");
+							thread.setDaemon(true);
+							return thread;
+						}
+						
+					});
+	
+	/**
+	 * The fork-join pool generating the data of each result, shared by all
+	 * plots.
+	 */
+	private static final ForkJoinPool GENERATOR = new ForkJoinPool();
 
 	/**
 	 * The {@link DiagnosticTool} instance containing this plot.
@@ -47,6 +85,18 @@ HierarchyListener {
 	 */
 	protected final String metric;
 	
+	/**
+	 * The number of the most recent update.
+	 */
+	private final AtomicLong generation;
+	
+	/**
+	 * The most recent update still being prepared; or {@code null} if no
+	 * update is being prepared.  This field must only be accessed on the
+	 * event dispatch thread.
+	 */
+	private Future<?> pending;
+	
 	/**
 	 * Constructs a new Swing component for displaying results.
 	 * 
@@ -59,22 +109,278 @@ HierarchyListener {
 		this.metric = metric;
 		this.controller = frame.getController();
 		
+		generation = new AtomicLong();
 		addHierarchyListener(this);
 	}
 	
 	/**
-	 * Updates the contents of this plot.  This method is automatically invoked
-	 * when the data model is changed, and will always be executed on the
-	 * event dispatch thread.
+	 * Updates the contents of this plot.  This method is invoked by the
+	 * {@link RedrawScheduler} when the data model is changed, and must be
+	 * invoked on the event dispatch thread.  The update is prepared in the
+	 * background; any update still being prepared is cancelled.
+	 */
+	protected void update() {
+		submit(createUpdate());
+	}
+	
+	/**
+	 * Prepares the specified update in the background and applies it on the
+	 * event dispatch thread, cancelling any update still being prepared.
+	 * Subclasses use this for partial updates, such as regenerating the data
+	 * for a new visible range.  This method must be invoked on the event
+	 * dispatch thread.
+	 * 
+	 * @param update the update; or {@code null} to only cancel the update
+	 *        still being prepared
+	 */
+	protected void submit(final PlotUpdate update) {
+		if (pending != null) {
+			pending.cancel(false);
+			pending = null;
+		}
+		
+		if (update == null) {
+			generation.incrementAndGet();
+			return;
+		}
+		
+		pending = EXECUTOR.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				if (update.isCancelled()) {
+					return;
+				}
+				
+				try {
+					update.prepare();
+				} catch (final RuntimeException e) {
+					SwingUtilities.invokeLater(new Runnable() {
+
+						@Override
+						public void run() {
+							if (!update.isCancelled()) {
+								controller.handleException(e);
+							}
+						}
+						
+					});
+					
+					return;
+				}
+				
+				SwingUtilities.invokeLater(new Runnable() {
+
+					@Override
+					public void run() {
+						if (!update.isCancelled()) {
+							pending = null;
+							update.apply();
+						}
+					}
+					
+				});
+			}
+			
+		});
+	}
+	
+	/**
+	 * Creates the next update of this plot.  This method is invoked on the
+	 * event dispatch thread, and should capture any state of the GUI that the
+	 * update depends on, such as the selected results.
+	 * 
+	 * @return the next update of this plot; or {@code null} if this plot has
+	 *         nothing to display
+	 */
+	protected abstract PlotUpdate createUpdate();
+	
+	/**
+	 * Generates the data of each result in parallel on a fork-join pool.  The
+	 * data of each result is independent, so the results are split between
+	 * the workers, but the returned list is always in the order of the keys.
+	 * 
+	 * @param <T> the type of the generated data
+	 * @param keys the keys identifying the results
+	 * @param update the update for which the data is generated, which is
+	 *        checked for cancellation before each result; or {@code null} if
+	 *        the generation cannot be cancelled
+	 * @param generator the generator of the data of one result
+	 * @return the data of each result, in the order of the keys; elements are
+	 *         {@code null} for results skipped because the update was
+	 *         cancelled
+	 */
+	protected <T> List<T> generateAll(List<ResultKey> keys, PlotUpdate update,
+			ResultGenerator<T> generator) {
+		Object[] results = new Object[keys.size()];
+		
+		if (results.length > 0) {
+			GENERATOR.invoke(new GenerateTask<T>(keys, update, generator, 
+					results, 0, results.length));
+		}
+		
+		@SuppressWarnings("unchecked")
+		List<T> list = (List<T>)Arrays.asList(results);
+		
+		return list;
+	}
+	
+	/**
+	 * Generates the data shown for one result.  Implementations are invoked
+	 * concurrently for different results, and must not access Swing
+	 * components.
+	 * 
+	 * @param <T> the type of the generated data
+	 */
+	protected interface ResultGenerator<T> {
+		
+		/**
+		 * Generates the data of the specified result.
+		 * 
+		 * @param key the key identifying the result
+		 * @return the data of the result
+		 */
+		public T generate(ResultKey key);
+		
+	}
+	
+	/**
+	 * Fork-join task generating the data of a range of results, splitting the
+	 * range in half until a single result remains.
+	 * 
+	 * @param <T> the type of the generated data
+	 */
+	private static class GenerateTask<T> extends RecursiveAction {
+
+		private static final long serialVersionUID = 352255612067088742L;
+
+		/**
+		 * The keys identifying the results.
+		 */
+		private final List<ResultKey> keys;
+		
+		/**
+		 * The update for which the data is generated; or {@code null} if the
+		 * generation cannot be cancelled.
+		 */
+		private final PlotUpdate update;
+		
+		/**
+		 * The generator of the data of one result.
+		 */
+		private final ResultGenerator<T> generator;
+		
+		/**
+		 * The generated data, stored at the index of each key.
+		 */
+		private final Object[] results;
+		
+		/**
+		 * The index of the first result in the range.
+		 */
+		private final int from;
+		
+		/**
+		 * The index following the last result in the range.
+		 */
+		private final int to;
+		
+		/**
+		 * Constructs a task generating the data of a range of results.
+		 * 
+		 * @param keys the keys identifying the results
+		 * @param update the update for which the data is generated; or
+		 *        {@code null} if the generation cannot be cancelled
+		 * @param generator the generator of the data of one result
+		 * @param results the generated data, stored at the index of each key
+		 * @param from the index of the first result in the range
+		 * @param to the index following the last result in the range
+		 */
+		public GenerateTask(List<ResultKey> keys, PlotUpdate update,
+				ResultGenerator<T> generator, Object[] results, int from, 
+				int to) {
+			super();
+			this.keys = keys;
+			this.update = update;
+			this.generator = generator;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				if ((update == null) || !update.isCancelled()) {
+					results[from] = generator.generate(keys.get(from));
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(
+						new GenerateTask<T>(keys, update, generator, results, 
+								from, middle),
+						new GenerateTask<T>(keys, update, generator, results, 
+								middle, to));
+			}
+		}
+		
+	}
+	
+	/**
+	 * One update of a plot, whose data is prepared on a background thread and
+	 * then applied on the event dispatch thread.
 	 */
-	protected abstract void update();
+	protected abstract class PlotUpdate {
+		
+		/**
+		 * The number of this update.
+		 */
+		private final long number;
+		
+		/**
+		 * Constructs the next update of the enclosing plot, superseding any
+		 * earlier update.  This constructor must be invoked on the event
+		 * dispatch thread.
+		 */
+		public PlotUpdate() {
+			super();
+			number = generation.incrementAndGet();
+		}
+		
+		/**
+		 * Returns {@code true} if this update has been superseded by a newer
+		 * update of the same plot; {@code false} otherwise.  Long-running
+		 * preparations should check this periodically and return early.
+		 * 
+		 * @return {@code true} if this update has been superseded by a newer
+		 *         update of the same plot; {@code false} otherwise
+		 */
+		public boolean isCancelled() {
+			return number != generation.get();
+		}
+		
+		/**
+		 * Prepares the data of this update.  This method is invoked on a
+		 * background thread and must not access Swing components.
+		 */
+		protected abstract void prepare();
+		
+		/**
+		 * Applies the prepared data to the plot.  This method is invoked on the
+		 * event dispatch thread, and only if this update has not been
+		 * superseded.
+		 */
+		protected abstract void apply();
+		
+	}
 
 	@Override
 	public void hierarchyChanged(HierarchyEvent e) {
 		if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
 			if (isShowing()) {
 				controller.addControllerListener(this);
-				update();
+				frame.getRedrawScheduler().requestRedraw(this);
 			} else {
 				controller.removeControllerListener(this);
 			}
@@ -84,7 +390,7 @@ HierarchyListener {
 	@Override
 	public void controllerStateChanged(ControllerEvent e) {
 		if (e.getType().equals(ControllerEvent.Type.MODEL_CHANGED)) {
-			update();
+			frame.getRedrawScheduler().requestRedraw(this);
 		}
 	}
 
@@ -0,0 +1,671 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variable;
+import org.moeaframework.core.variable.RealVariable;
+
+/** Constants and block encoding shared by {@link SessionWriter} and {@link SessionReader}.
+ * <p>
+ * A session file starts with a header containing the parameterization table, the metric name
+ * table, and the key index. The key index lists every {@link ResultKey} with one entry per seed,
+ * giving the position and length of the seed's block along with a summary of the metrics it
+ * contains. The header is followed by one block per (key, seed) in index order. Each block holds
+ * a single {@link Accumulator} encoded column by column: integer and floating-point metrics are
+ * written as primitive arrays, approximation sets as packed solutions, and any other value falls
+ * back to Java serialization. Each block is then compressed independently with the session's
+ * {@link Codec}. Blocks can therefore be read one at a time, either sequentially or by seeking to
+ * the offset stored in the index, and several blocks can be compressed or decompressed in
+ * parallel. */
+public class SessionFormat {
+
+	/** The magic number identifying session files. */
+	public static final int MAGIC= 0x42445346;
+
+	/** The version of the session format written by {@link SessionWriter}. Version 1 files have
+	 * no codec and store every block uncompressed. */
+	public static final int VERSION= 2;
+
+	/** The number of blocks per processor that may be compressed or decompressed ahead of the block
+	 * being written or read, bounding the memory used by parallel encoding. */
+	static final int BLOCKS_PER_PROCESSOR= 2;
+
+	/** The executor shared by all session readers and writers for encoding and decoding blocks in
+	 * parallel; or {@code null} if it has not yet been created. */
+	private static ExecutorService executor;
+
+	/** The compression codecs applied to each block. */
+	public enum Codec {
+
+		/** Blocks are stored uncompressed. */
+		NONE(0, Deflater.NO_COMPRESSION),
+
+		/** Blocks are compressed with Deflate at the default compression level. */
+		DEFLATE(1, Deflater.DEFAULT_COMPRESSION),
+
+		/** Blocks are compressed with Deflate at the fastest compression level, trading file size
+		 * for speed. */
+		DEFLATE_FAST(2, Deflater.BEST_SPEED);
+
+		/** The identifier of this codec stored in the session header. */
+		private final int id;
+
+		/** The Deflate compression level. */
+		private final int level;
+
+		/** Constructs a new codec.
+		 *
+		 * @param id    the identifier of this codec stored in the session header
+		 * @param level the Deflate compression level */
+		private Codec(int id, int level) {
+			this.id= id;
+			this.level= level;
+		}
+
+		/** Returns the identifier of this codec stored in the session header.
+		 *
+		 * @return the identifier of this codec stored in the session header */
+		public int getId() {
+			return id;
+		}
+
+		/** Returns the codec with the specified identifier.
+		 *
+		 * @param id the identifier stored in the session header
+		 * @return the codec with the specified identifier
+		 * @throws IOException if no codec has the specified identifier */
+		public static Codec forId(int id) throws IOException {
+			for (Codec codec : values()) {
+				if (codec.id == id) { return codec; }
+			}
+
+			throw new IOException("unknown session codec " + id);
+		}
+
+		/** Compresses the contents of a block.
+		 *
+		 * @param data the encoded block
+		 * @return the compressed block */
+		public byte[] compress(byte[] data) {
+			if (this == NONE) { return data; }
+
+			Deflater deflater= new Deflater(level);
+			ByteArrayOutputStream out= new ByteArrayOutputStream(data.length / 4 + 64);
+			byte[] buffer= new byte[8192];
+
+			try {
+				deflater.setInput(data);
+				deflater.finish();
+
+				while (!deflater.finished()) {
+					out.write(buffer, 0, deflater.deflate(buffer));
+				}
+			} finally {
+				deflater.end();
+			}
+
+			return out.toByteArray();
+		}
+
+		/** Decompresses the contents of a block.
+		 *
+		 * @param data   the compressed block
+		 * @param length the length of the encoded block
+		 * @return the encoded block
+		 * @throws IOException if the block is malformed */
+		public byte[] decompress(byte[] data, int length) throws IOException {
+			if (this == NONE) { return data; }
+
+			Inflater inflater= new Inflater();
+			byte[] result= new byte[length];
+			int count= 0;
+
+			try {
+				inflater.setInput(data);
+
+				while (count < length) {
+					int n= inflater.inflate(result, count, length - count);
+
+					if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+						throw new EOFException("session block is truncated");
+					}
+
+					count+= n;
+				}
+			} catch (DataFormatException e) {
+				throw new IOException(e);
+			} finally {
+				inflater.end();
+			}
+
+			return result;
+		}
+
+	}
+
+	/** The tag for a column whose values are all {@link Integer}s. */
+	private static final byte INT_COLUMN= 1;
+
+	/** The tag for a column whose values are all {@link Long}s. */
+	private static final byte LONG_COLUMN= 2;
+
+	/** The tag for a column whose values are all {@link Number}s. */
+	private static final byte DOUBLE_COLUMN= 3;
+
+	/** The tag for a column whose values are all lists of {@link Solution}s. */
+	private static final byte SOLUTION_COLUMN= 4;
+
+	/** The tag for a column whose values are written with Java serialization. */
+	private static final byte OBJECT_COLUMN= 5;
+
+	/** The tag for a solution whose variables are all real-valued and which has no attributes. */
+	private static final byte PACKED_SOLUTION= 1;
+
+	/** The tag for a solution written with Java serialization. */
+	private static final byte SERIALIZED_SOLUTION= 2;
+
+	/** The index entry of one block, identifying the (key, seed) it stores, where the block is
+	 * located in the file, and which metrics it contains. */
+	public static class Block {
+
+		/** The result key of this block. */
+		private final ResultKey key;
+
+		/** The position of this block in the file. */
+		private long offset;
+
+		/** The length of this block in bytes, as stored in the file. */
+		private int length;
+
+		/** The length of this block in bytes before compression. */
+		private int rawLength;
+
+		/** The metrics stored in this block. */
+		private final String[] metrics;
+
+		/** The number of entries of each metric. */
+		private final int[] sizes;
+
+		/** The last value of each metric; or {@code NaN} for non-numeric metrics. */
+		private final double[] finalValues;
+
+		/** Constructs a new block index entry.
+		 *
+		 * @param key         the result key of this block
+		 * @param offset      the position of this block in the file
+		 * @param length      the length of this block in bytes, as stored in the file
+		 * @param rawLength   the length of this block in bytes before compression
+		 * @param metrics     the metrics stored in this block, in sorted order
+		 * @param sizes       the number of entries of each metric
+		 * @param finalValues the last value of each metric; or {@code NaN} for non-numeric
+		 *                    metrics */
+		public Block(ResultKey key, long offset, int length, int rawLength, String[] metrics,
+			int[] sizes, double[] finalValues) {
+			super();
+			this.key= key;
+			this.offset= offset;
+			this.length= length;
+			this.rawLength= rawLength;
+			this.metrics= metrics;
+			this.sizes= sizes;
+			this.finalValues= finalValues;
+		}
+
+		/** Constructs the index entry describing an accumulator that has not yet been written.
+		 *
+		 * @param key         the result key of the accumulator
+		 * @param accumulator the accumulator */
+		public Block(ResultKey key, Accumulator accumulator) {
+			super();
+			this.key= key;
+			offset= -1;
+			length= -1;
+			rawLength= -1;
+			metrics= new TreeSet<>(accumulator.keySet()).toArray(new String[0]);
+			sizes= new int[metrics.length];
+			finalValues= new double[metrics.length];
+
+			for (int i= 0; i < metrics.length; i++ ) {
+				int size= accumulator.size(metrics[i]);
+				Serializable last= size == 0 ? null : accumulator.get(metrics[i], size - 1);
+
+				sizes[i]= size;
+				finalValues[i]= last instanceof Number ? ((Number) last).doubleValue() :
+					Double.NaN;
+			}
+		}
+
+		/** Returns the result key of this block.
+		 *
+		 * @return the result key of this block */
+		public ResultKey getKey() {
+			return key;
+		}
+
+		/** Returns the position of this block in the file.
+		 *
+		 * @return the position of this block in the file */
+		public long getOffset() {
+			return offset;
+		}
+
+		/** Returns the length of this block in bytes, as stored in the file.
+		 *
+		 * @return the length of this block in bytes, as stored in the file */
+		public int getLength() {
+			return length;
+		}
+
+		/** Returns the length of this block in bytes before compression.
+		 *
+		 * @return the length of this block in bytes before compression */
+		public int getRawLength() {
+			return rawLength;
+		}
+
+		/** Returns a copy of this index entry whose location has not yet been set, for writing the
+		 * same block to another file.
+		 *
+		 * @return a copy of this index entry whose location has not yet been set */
+		public Block copy() {
+			return new Block(key, -1, -1, -1, metrics, sizes, finalValues);
+		}
+
+		/** Sets the location of this block once it has been written.
+		 *
+		 * @param offset    the position of this block in the file
+		 * @param length    the length of this block in bytes, as stored in the file
+		 * @param rawLength the length of this block in bytes before compression */
+		void setLocation(long offset, int length, int rawLength) {
+			this.offset= offset;
+			this.length= length;
+			this.rawLength= rawLength;
+		}
+
+		/** Returns the metrics stored in this block.
+		 *
+		 * @return the metrics stored in this block */
+		public List<String> getMetrics() {
+			return Collections.unmodifiableList(Arrays.asList(metrics));
+		}
+
+		/** Returns the number of entries of the specified metric in this block.
+		 *
+		 * @param metric the metric
+		 * @return the number of entries of the metric; or {@code 0} if this block does not contain
+		 *         the metric */
+		public int getSize(String metric) {
+			int index= indexOf(metric);
+			return index < 0 ? 0 : sizes[index];
+		}
+
+		/** Returns the last value of the specified metric in this block.
+		 *
+		 * @param metric the metric
+		 * @return the last value of the metric; or {@code NaN} if this block does not contain the
+		 *         metric or the metric is not numeric */
+		public double getFinalValue(String metric) {
+			int index= indexOf(metric);
+			return index < 0 ? Double.NaN : finalValues[index];
+		}
+
+		/** Returns the index of the specified metric in this block.
+		 *
+		 * @param metric the metric
+		 * @return the index of the metric; or {@code -1} if this block does not contain the
+		 *         metric */
+		private int indexOf(String metric) {
+			return Arrays.binarySearch(metrics, metric);
+		}
+
+	}
+
+	/** Constructs a new session format. This class only provides static members. */
+	private SessionFormat() {
+		super();
+	}
+
+	/** Returns the executor shared by all session readers and writers for encoding and decoding
+	 * blocks in parallel. The executor uses one daemon thread per processor.
+	 *
+	 * @return the executor shared by all session readers and writers */
+	static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor= Executors.newFixedThreadPool(getParallelism(), new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread= new Thread(runnable, "session-codec");
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+		}
+
+		return executor;
+	}
+
+	/** Returns the number of blocks encoded or decoded in parallel.
+	 *
+	 * @return the number of blocks encoded or decoded in parallel */
+	static int getParallelism() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/** Creates the index entries for a collection of results, in the order their blocks are
+	 * written.
+	 *
+	 * @param results the results
+	 * @return the index entries for the results */
+	public static List<Block> index(Map<ResultKey, List<Accumulator>> results) {
+		List<Block> blocks= new ArrayList<>();
+
+		for (ResultKey key : new TreeSet<>(results.keySet())) {
+			for (Accumulator accumulator : results.get(key)) {
+				blocks.add(new Block(key, accumulator));
+			}
+		}
+
+		return blocks;
+	}
+
+	/** Encodes an accumulator as the contents of a block.
+	 *
+	 * @param accumulator the accumulator
+	 * @return the encoded accumulator
+	 * @throws IOException if an I/O error occurred */
+	public static byte[] encode(Accumulator accumulator) throws IOException {
+		ByteArrayOutputStream buffer= new ByteArrayOutputStream();
+		DataOutputStream out= new DataOutputStream(buffer);
+		TreeSet<String> metrics= new TreeSet<>(accumulator.keySet());
+
+		out.writeInt(metrics.size());
+
+		for (String metric : metrics) {
+			int size= accumulator.size(metric);
+			byte tag= getColumnType(accumulator, metric);
+
+			out.writeUTF(metric);
+			out.writeInt(size);
+			out.writeByte(tag);
+
+			for (int i= 0; i < size; i++ ) {
+				Serializable value= accumulator.get(metric, i);
+
+				switch (tag) {
+				case INT_COLUMN:
+					out.writeInt((Integer) value);
+					break;
+				case LONG_COLUMN:
+					out.writeLong((Long) value);
+					break;
+				case DOUBLE_COLUMN:
+					out.writeDouble(((Number) value).doubleValue());
+					break;
+				case SOLUTION_COLUMN:
+					List<?> list= (List<?>) value;
+					out.writeInt(list.size());
+
+					for (Object solution : list) {
+						writeSolution(out, (Solution) solution);
+					}
+
+					break;
+				default:
+					writeObject(out, value);
+					break;
+				}
+			}
+		}
+
+		out.close();
+		return buffer.toByteArray();
+	}
+
+	/** Decodes an accumulator from the contents of a block.
+	 *
+	 * @param data the encoded accumulator
+	 * @return the decoded accumulator
+	 * @throws IOException if an I/O error occurred or the block is malformed */
+	public static Accumulator decode(byte[] data) throws IOException {
+		DataInputStream in= new DataInputStream(new ByteArrayInputStream(data));
+		Accumulator accumulator= new Accumulator();
+		int metrics= in.readInt();
+
+		for (int j= 0; j < metrics; j++ ) {
+			String metric= in.readUTF();
+			int size= in.readInt();
+			byte tag= in.readByte();
+
+			for (int i= 0; i < size; i++ ) {
+				switch (tag) {
+				case INT_COLUMN:
+					accumulator.add(metric, in.readInt());
+					break;
+				case LONG_COLUMN:
+					accumulator.add(metric, in.readLong());
+					break;
+				case DOUBLE_COLUMN:
+					accumulator.add(metric, in.readDouble());
+					break;
+				case SOLUTION_COLUMN:
+					int count= in.readInt();
+					ArrayList<Solution> list= new ArrayList<>(count);
+
+					for (int k= 0; k < count; k++ ) {
+						list.add(readSolution(in));
+					}
+
+					accumulator.add(metric, list);
+					break;
+				case OBJECT_COLUMN:
+					accumulator.add(metric, readObject(in));
+					break;
+				default:
+					throw new IOException("unknown column type " + tag);
+				}
+			}
+		}
+
+		return accumulator;
+	}
+
+	/** Determines the most compact column type able to store every value of a metric.
+	 *
+	 * @param accumulator the accumulator
+	 * @param metric      the metric
+	 * @return the column type tag */
+	private static byte getColumnType(Accumulator accumulator, String metric) {
+		boolean ints= true;
+		boolean longs= true;
+		boolean numbers= true;
+		boolean solutions= true;
+
+		for (int i= 0; i < accumulator.size(metric); i++ ) {
+			Serializable value= accumulator.get(metric, i);
+
+			ints&= value instanceof Integer;
+			longs&= value instanceof Long;
+			numbers&= value instanceof Double || value instanceof Float ||
+				value instanceof Integer || value instanceof Long;
+			solutions&= isSolutionList(value);
+		}
+
+		if (ints) {
+			return INT_COLUMN;
+		} else if (longs) {
+			return LONG_COLUMN;
+		} else if (numbers) {
+			return DOUBLE_COLUMN;
+		} else if (solutions) {
+			return SOLUTION_COLUMN;
+		} else {
+			return OBJECT_COLUMN;
+		}
+	}
+
+	/** Returns {@code true} if the value is a list containing only solutions; {@code false}
+	 * otherwise.
+	 *
+	 * @param value the value
+	 * @return {@code true} if the value is a list containing only solutions; {@code false}
+	 *         otherwise */
+	private static boolean isSolutionList(Object value) {
+		if (!(value instanceof List)) { return false; }
+
+		for (Object element : (List<?>) value) {
+			if (!(element instanceof Solution)) { return false; }
+		}
+
+		return true;
+	}
+
+	/** Writes a solution. Solutions with only real-valued variables and no attributes are packed
+	 * as primitive values; all others are written with Java serialization.
+	 *
+	 * @param out      the output
+	 * @param solution the solution
+	 * @throws IOException if an I/O error occurred */
+	private static void writeSolution(DataOutput out, Solution solution) throws IOException {
+		boolean packed= solution.getAttributes().isEmpty();
+
+		for (int i= 0; packed && i < solution.getNumberOfVariables(); i++ ) {
+			packed= solution.getVariable(i) instanceof RealVariable;
+		}
+
+		if (!packed) {
+			out.writeByte(SERIALIZED_SOLUTION);
+			writeObject(out, solution);
+			return;
+		}
+
+		out.writeByte(PACKED_SOLUTION);
+		out.writeInt(solution.getNumberOfVariables());
+		out.writeInt(solution.getNumberOfObjectives());
+		out.writeInt(solution.getNumberOfConstraints());
+
+		for (int i= 0; i < solution.getNumberOfVariables(); i++ ) {
+			RealVariable variable= (RealVariable) solution.getVariable(i);
+			out.writeDouble(variable.getValue());
+			out.writeDouble(variable.getLowerBound());
+			out.writeDouble(variable.getUpperBound());
+		}
+
+		for (int i= 0; i < solution.getNumberOfObjectives(); i++ ) {
+			out.writeDouble(solution.getObjective(i));
+		}
+
+		for (int i= 0; i < solution.getNumberOfConstraints(); i++ ) {
+			out.writeDouble(solution.getConstraint(i));
+		}
+	}
+
+	/** Reads a solution written by {@link #writeSolution(DataOutput, Solution)}.
+	 *
+	 * @param in the input
+	 * @return the solution
+	 * @throws IOException if an I/O error occurred or the solution is malformed */
+	private static Solution readSolution(DataInput in) throws IOException {
+		byte tag= in.readByte();
+
+		if (tag == SERIALIZED_SOLUTION) {
+			return (Solution) readObject(in);
+		} else if (tag != PACKED_SOLUTION) {
+			throw new IOException("unknown solution type " + tag);
+		}
+
+		Solution solution= new Solution(in.readInt(), in.readInt(), in.readInt());
+
+		for (int i= 0; i < solution.getNumberOfVariables(); i++ ) {
+			double value= in.readDouble();
+			double lowerBound= in.readDouble();
+			double upperBound= in.readDouble();
+			Variable variable= new RealVariable(value, lowerBound, upperBound);
+			solution.setVariable(i, variable);
+		}
+
+		for (int i= 0; i < solution.getNumberOfObjectives(); i++ ) {
+			solution.setObjective(i, in.readDouble());
+		}
+
+		for (int i= 0; i < solution.getNumberOfConstraints(); i++ ) {
+			solution.setConstraint(i, in.readDouble());
+		}
+
+		return solution;
+	}
+
+	/** Writes a value with Java serialization, prefixed by its length.
+	 *
+	 * @param out   the output
+	 * @param value the value
+	 * @throws IOException if an I/O error occurred */
+	private static void writeObject(DataOutput out, Object value) throws IOException {
+		ByteArrayOutputStream buffer= new ByteArrayOutputStream();
+		ObjectOutputStream oos= new ObjectOutputStream(buffer);
+		oos.writeObject(value);
+		oos.close();
+
+		out.writeInt(buffer.size());
+		out.write(buffer.toByteArray());
+	}
+
+	/** Reads a value written by {@link #writeObject(DataOutput, Object)}.
+	 *
+	 * @param in the input
+	 * @return the value
+	 * @throws IOException if an I/O error occurred or the value could not be deserialized */
+	private static Serializable readObject(DataInput in) throws IOException {
+		byte[] data= new byte[in.readInt()];
+		in.readFully(data);
+
+		try (ObjectInputStream ois= new ObjectInputStream(new ByteArrayInputStream(data))) {
+			return (Serializable) ois.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,422 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Block;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Codec;
+import org.moeaframework.util.CommandLineUtility;
+import org.moeaframework.util.Localization;
+
+/** Merges several session files into one, removing duplicate seeds. The inputs are opened in
+ * parallel and only their indices are read up front. Seeds whose key and index summary match
+ * another seed are hashed in parallel, and a seed is a duplicate if an earlier seed with the same
+ * key has identical encoded contents. The remaining seeds are copied to the merged session one
+ * block at a time without being decoded.
+ * <p>
+ * Usage: {@code SessionMerger -o <output> [-c <codec>] <input> <input> ...} */
+public class SessionMerger extends CommandLineUtility {
+
+	/** The localization instance for produce locale-specific strings. */
+	private static Localization localization= Localization.getLocalization(
+		SessionMerger.class);
+
+	/** The algorithm used to hash the contents of seeds. */
+	private static final String DIGEST_ALGORITHM= "SHA-256";
+
+	/** The outcome of a merge. */
+	public static class Result {
+
+		/** The number of seeds written to the merged session. */
+		private final int seedCount;
+
+		/** The number of duplicate seeds removed. */
+		private final int duplicateCount;
+
+		/** Constructs the outcome of a merge.
+		 *
+		 * @param seedCount      the number of seeds written to the merged session
+		 * @param duplicateCount the number of duplicate seeds removed */
+		public Result(int seedCount, int duplicateCount) {
+			super();
+			this.seedCount= seedCount;
+			this.duplicateCount= duplicateCount;
+		}
+
+		/** Returns the number of seeds written to the merged session.
+		 *
+		 * @return the number of seeds written to the merged session */
+		public int getSeedCount() {
+			return seedCount;
+		}
+
+		/** Returns the number of duplicate seeds removed.
+		 *
+		 * @return the number of duplicate seeds removed */
+		public int getDuplicateCount() {
+			return duplicateCount;
+		}
+
+	}
+
+	/** A seed of one of the input sessions. */
+	private static class Source {
+
+		/** The reader of the session containing the seed. */
+		private final SessionReader reader;
+
+		/** The index entry of the seed. */
+		private final Block block;
+
+		/** Constructs a new seed of one of the input sessions.
+		 *
+		 * @param reader the reader of the session containing the seed
+		 * @param block  the index entry of the seed */
+		public Source(SessionReader reader, Block block) {
+			super();
+			this.reader= reader;
+			this.block= block;
+		}
+
+	}
+
+	/** Constructs the command line utility for merging session files. */
+	public SessionMerger() {
+		super();
+	}
+
+	@Override
+	public Options getOptions() {
+		Options options= super.getOptions();
+
+		Option output= new Option("o", "output", true, null);
+		output.setArgName("file");
+		output.setRequired(true);
+		options.addOption(output);
+
+		Option codec= new Option("c", "codec", true, null);
+		codec.setArgName("name");
+		options.addOption(codec);
+
+		return options;
+	}
+
+	@Override
+	public void run(CommandLine commandLine) throws Exception {
+		List<File> inputs= new ArrayList<>();
+
+		for (String arg : commandLine.getArgs()) {
+			inputs.add(new File(arg));
+		}
+
+		Result result= merge(inputs, new File(commandLine.getOptionValue("output")),
+			parseCodec(commandLine.getOptionValue("codec", "deflate")), null);
+
+		System.out.println(localization.getString("text.mergeComplete", inputs.size(),
+			result.getSeedCount(), result.getDuplicateCount()));
+	}
+
+	/** Returns the codec with the specified command line name.
+	 *
+	 * @param name the name of the codec, one of {@code none}, {@code deflate} or {@code fast}
+	 * @return the codec with the specified name
+	 * @throws IllegalArgumentException if no codec has the specified name */
+	private static Codec parseCodec(String name) {
+		if (name.equalsIgnoreCase("none")) {
+			return Codec.NONE;
+		} else if (name.equalsIgnoreCase("deflate")) {
+			return Codec.DEFLATE;
+		} else if (name.equalsIgnoreCase("fast")) {
+			return Codec.DEFLATE_FAST;
+		} else {
+			throw new IllegalArgumentException("unknown codec " + name);
+		}
+	}
+
+	/** Merges several session files into one, removing duplicate seeds. The merged session is
+	 * written to a temporary file that replaces the output only once complete, so the output may
+	 * also be one of the inputs.
+	 *
+	 * @param inputs   the session files to merge
+	 * @param output   the merged session file
+	 * @param codec    the codec used to compress the merged session
+	 * @param progress the progress of the merge; or {@code null} if progress is not reported
+	 * @return the outcome of the merge
+	 * @throws IOException if an I/O error occurred or an input is not a session file
+	 * @throws InterruptedIOException if the merge was cancelled */
+	public static Result merge(List<File> inputs, File output, Codec codec,
+		TaskProgress progress) throws IOException {
+		List<SessionReader> readers= open(inputs);
+
+		try {
+			List<Source> sources= new ArrayList<>();
+
+			for (SessionReader reader : readers) {
+				for (Block block : reader.getBlocks()) {
+					sources.add(new Source(reader, block));
+				}
+			}
+
+			List<Source> unique= removeDuplicates(sources, progress);
+
+			// group seeds by key, keeping the input order within each key
+			Collections.sort(unique, new Comparator<Source>() {
+
+				@Override
+				public int compare(Source s1, Source s2) {
+					return s1.block.getKey().compareTo(s2.block.getKey());
+				}
+
+			});
+
+			List<Block> index= new ArrayList<>();
+
+			for (Source source : unique) {
+				index.add(source.block.copy());
+			}
+
+			File temp= File.createTempFile(output.getName(), ".tmp", output.getAbsoluteFile()
+				.getParentFile());
+
+			try {
+				try (SessionWriter writer= new SessionWriter(temp, index, codec)) {
+					for (int i= 0; i < unique.size(); i++ ) {
+						checkCancelled(progress);
+						unique.get(i).reader.copy(unique.get(i).block, writer);
+
+						if (progress != null) {
+							progress.progressChanged(sources.size() + i + 1,
+								sources.size() + unique.size());
+						}
+					}
+				}
+
+				// the output may be one of the inputs, which cannot be replaced while it is open
+				for (SessionReader reader : readers) {
+					reader.close();
+				}
+
+				Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temp.toPath());
+			}
+
+			return new Result(unique.size(), sources.size() - unique.size());
+		} finally {
+			for (SessionReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	/** Opens the input sessions in parallel.
+	 *
+	 * @param inputs the session files
+	 * @return the readers of the session files, in the same order
+	 * @throws IOException if an I/O error occurred or an input is not a session file */
+	private static List<SessionReader> open(List<File> inputs) throws IOException {
+		List<Future<SessionReader>> futures= new ArrayList<>();
+		List<SessionReader> readers= new ArrayList<>();
+
+		for (final File input : inputs) {
+			futures.add(SessionFormat.getExecutor().submit(new Callable<SessionReader>() {
+
+				@Override
+				public SessionReader call() throws IOException {
+					return new SessionReader(input);
+				}
+
+			}));
+		}
+
+		IOException error= null;
+
+		for (Future<SessionReader> future : futures) {
+			try {
+				readers.add(future.get());
+			} catch (InterruptedException e) {
+				error= new InterruptedIOException();
+			} catch (ExecutionException e) {
+				error= e.getCause() instanceof IOException ? (IOException) e.getCause() :
+					new IOException(e.getCause());
+			}
+		}
+
+		if (error != null) {
+			for (SessionReader reader : readers) {
+				reader.close();
+			}
+
+			throw error;
+		}
+
+		return readers;
+	}
+
+	/** Removes duplicate seeds, keeping the first occurrence. Only seeds sharing their key and
+	 * index summary with another seed can be duplicates, so only those are read and hashed.
+	 *
+	 * @param sources  the seeds of all input sessions, in input order
+	 * @param progress the progress of the merge; or {@code null} if progress is not reported
+	 * @return the seeds that are not duplicates, in input order
+	 * @throws IOException if an I/O error occurred
+	 * @throws InterruptedIOException if the merge was cancelled */
+	private static List<Source> removeDuplicates(List<Source> sources, TaskProgress progress)
+		throws IOException {
+		Map<String, Integer> signatures= new HashMap<>();
+		Set<String> collisions= new HashSet<>();
+
+		for (Source source : sources) {
+			String signature= getSignature(source.block);
+			Integer count= signatures.get(signature);
+
+			signatures.put(signature, count == null ? 1 : count + 1);
+
+			if (count != null) {
+				collisions.add(signature);
+			}
+		}
+
+		List<Future<byte[]>> digests= new ArrayList<>();
+
+		for (final Source source : sources) {
+			if (collisions.contains(getSignature(source.block))) {
+				digests.add(SessionFormat.getExecutor().submit(new Callable<byte[]>() {
+
+					@Override
+					public byte[] call() throws IOException {
+						return hash(source.reader.readBytes(source.block));
+					}
+
+				}));
+			} else {
+				digests.add(null);
+			}
+		}
+
+		List<Source> unique= new ArrayList<>();
+		Set<String> seen= new HashSet<>();
+
+		try {
+			for (int i= 0; i < sources.size(); i++ ) {
+				Source source= sources.get(i);
+
+				checkCancelled(progress);
+
+				if (digests.get(i) == null ||
+					seen.add(getSignature(source.block) + Arrays.toString(digests.get(i).get()))) {
+					unique.add(source);
+				}
+
+				if (progress != null) {
+					progress.progressChanged(i + 1, 2 * sources.size());
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+
+			throw new IOException(e.getCause());
+		} finally {
+			for (Future<byte[]> digest : digests) {
+				if (digest != null) {
+					digest.cancel(false);
+				}
+			}
+		}
+
+		return unique;
+	}
+
+	/** Returns a string identifying the key and index summary of a seed. Seeds with different
+	 * signatures cannot have identical contents.
+	 *
+	 * @param block the index entry of the seed
+	 * @return a string identifying the key and index summary of the seed */
+	private static String getSignature(Block block) {
+		StringBuilder sb= new StringBuilder();
+		ResultKey key= block.getKey();
+
+		sb.append(key.getAlgorithm()).append('\u0000');
+		sb.append(key.getProblem()).append('\u0000');
+		sb.append(key.getParameterizationId()).append('\u0000');
+		sb.append(block.getRawLength());
+
+		for (String metric : block.getMetrics()) {
+			sb.append('\u0000').append(metric);
+			sb.append(':').append(block.getSize(metric));
+			sb.append(':').append(Double.doubleToLongBits(block.getFinalValue(metric)));
+		}
+
+		return sb.toString();
+	}
+
+	/** Returns the content hash of an encoded seed.
+	 *
+	 * @param data the encoded seed
+	 * @return the content hash of the encoded seed */
+	private static byte[] hash(byte[] data) {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(data);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Throws an exception if the merge has been cancelled.
+	 *
+	 * @param progress the progress of the merge; or {@code null} if the merge cannot be cancelled
+	 * @throws InterruptedIOException if the merge has been cancelled */
+	private static void checkCancelled(TaskProgress progress) throws InterruptedIOException {
+		if (progress != null && progress.isCancelled()) {
+			throw new InterruptedIOException("cancelled");
+		}
+	}
+
+	/** Starts the command line utility for merging session files.
+	 *
+	 * @param args the command line arguments
+	 * @throws Exception if an error occurred */
+	public static void main(String[] args) throws Exception {
+		new SessionMerger().start(args);
+	}
+
+}
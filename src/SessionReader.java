@@ -0,0 +1,345 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Block;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Codec;
+
+/** Reads session files in the format described by {@link SessionFormat}. The header is read when
+ * the reader is created; blocks are only read when requested. When several blocks are requested
+ * at once they are read and decompressed in parallel, but at most a few blocks per processor are
+ * held in memory at a time. */
+public class SessionReader implements Closeable {
+
+	/** The handler receiving the blocks read by {@link SessionReader#readAll(Handler)}. */
+	public interface Handler {
+
+		/** Called when a block has been read.
+		 *
+		 * @param block       the index entry of the block
+		 * @param accumulator the accumulator stored in the block */
+		public void blockRead(Block block, Accumulator accumulator);
+
+	}
+
+	/** The session file. */
+	private final File source;
+
+	/** The file being read. */
+	private final RandomAccessFile file;
+
+	/** The index entries of the blocks, in the order they appear in the header. */
+	private final List<Block> blocks;
+
+	/** The codec used to compress blocks. */
+	private Codec codec;
+
+	/** Constructs a new session reader and reads the header.
+	 *
+	 * @param file the file to read
+	 * @throws IOException if an I/O error occurred or the file is not a session file */
+	public SessionReader(File file) throws IOException {
+		super();
+		source= file;
+		this.file= new RandomAccessFile(file, "r");
+
+		try {
+			blocks= readHeader();
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/** Returns {@code true} if the specified file starts with the session magic number;
+	 * {@code false} otherwise.
+	 *
+	 * @param file the file
+	 * @return {@code true} if the specified file starts with the session magic number;
+	 *         {@code false} otherwise
+	 * @throws IOException if an I/O error occurred */
+	public static boolean isSession(File file) throws IOException {
+		try (DataInputStream in= new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == SessionFormat.MAGIC;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	/** Returns the session file read by this reader.
+	 *
+	 * @return the session file read by this reader */
+	public File getFile() {
+		return source;
+	}
+
+	/** Returns the codec used to compress blocks.
+	 *
+	 * @return the codec used to compress blocks */
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/** Returns the index entries of the blocks in this session.
+	 *
+	 * @return the index entries of the blocks in this session */
+	public List<Block> getBlocks() {
+		return Collections.unmodifiableList(blocks);
+	}
+
+	/** Reads and decodes a single block. This method may be called concurrently.
+	 *
+	 * @param block the index entry of the block
+	 * @return the accumulator stored in the block
+	 * @throws IOException if an I/O error occurred or the block is malformed */
+	public Accumulator read(Block block) throws IOException {
+		return SessionFormat.decode(readBytes(block));
+	}
+
+	/** Reads several blocks in parallel.
+	 *
+	 * @param blocks the index entries of the blocks
+	 * @return the accumulators stored in the blocks, in the same order
+	 * @throws IOException if an I/O error occurred or a block is malformed */
+	public List<Accumulator> read(List<Block> blocks) throws IOException {
+		final List<Accumulator> result= new ArrayList<>();
+
+		readAll(blocks, new Handler() {
+
+			@Override
+			public void blockRead(Block block, Accumulator accumulator) {
+				result.add(accumulator);
+			}
+
+		});
+
+		return result;
+	}
+
+	/** Reads and decompresses the undecoded contents of a single block. This method may be called
+	 * concurrently.
+	 *
+	 * @param block the index entry of the block
+	 * @return the encoded contents of the block
+	 * @throws IOException if an I/O error occurred or the block is malformed */
+	public byte[] readBytes(Block block) throws IOException {
+		return codec.decompress(readStored(block), block.getRawLength());
+	}
+
+	/** Reads the contents of a single block as stored in the file, compressed with this session's
+	 * codec. This method may be called concurrently.
+	 *
+	 * @param block the index entry of the block
+	 * @return the stored contents of the block
+	 * @throws IOException if an I/O error occurred */
+	public byte[] readStored(Block block) throws IOException {
+		FileChannel channel= file.getChannel();
+		ByteBuffer buffer= ByteBuffer.allocate(block.getLength());
+
+		while (buffer.hasRemaining()) {
+			int count= channel.read(buffer, block.getOffset() + buffer.position());
+
+			if (count < 0) { throw new EOFException("session file is truncated"); }
+		}
+
+		return buffer.array();
+	}
+
+	/** Copies a single block to a session being written, without decoding it. The stored bytes are
+	 * copied as is when both sessions use the same codec.
+	 *
+	 * @param block  the index entry of the block
+	 * @param writer the writer of the other session
+	 * @throws IOException if an I/O error occurred */
+	public void copy(Block block, SessionWriter writer) throws IOException {
+		if (codec == writer.getCodec()) {
+			writer.write(readStored(block), block.getRawLength());
+		} else {
+			writer.write(readBytes(block));
+		}
+	}
+
+	/** Reads every block in file order, passing each to the handler in turn.
+	 *
+	 * @param handler the handler receiving the blocks
+	 * @throws IOException if an I/O error occurred or a block is malformed */
+	public void readAll(Handler handler) throws IOException {
+		List<Block> ordered= new ArrayList<>(blocks);
+
+		Collections.sort(ordered, new Comparator<Block>() {
+
+			@Override
+			public int compare(Block b1, Block b2) {
+				return Long.compare(b1.getOffset(), b2.getOffset());
+			}
+
+		});
+
+		readAll(ordered, handler);
+	}
+
+	/** Reads the specified blocks, passing each to the handler in the given order. Blocks are read
+	 * and decoded in parallel ahead of the block passed to the handler, but only within a bounded
+	 * window. The handler is invoked on the calling thread.
+	 *
+	 * @param blocks  the index entries of the blocks
+	 * @param handler the handler receiving the blocks
+	 * @throws IOException if an I/O error occurred or a block is malformed */
+	public void readAll(List<Block> blocks, Handler handler) throws IOException {
+		int window= SessionFormat.BLOCKS_PER_PROCESSOR * SessionFormat.getParallelism();
+		Queue<Future<Accumulator>> queue= new ArrayDeque<>();
+		int next= 0;
+
+		try {
+			for (int i= 0; i < blocks.size(); i++ ) {
+				while (next < blocks.size() && next - i < window) {
+					final Block block= blocks.get(next++);
+
+					queue.add(SessionFormat.getExecutor().submit(new Callable<Accumulator>() {
+
+						@Override
+						public Accumulator call() throws IOException {
+							return read(block);
+						}
+
+					}));
+				}
+
+				handler.blockRead(blocks.get(i), queue.remove().get());
+			}
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+
+			throw new IOException(e.getCause());
+		} finally {
+			// interrupting a task would close the shared file channel
+			for (Future<Accumulator> future : queue) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/** Reads the header, registering the parameterizations it contains.
+	 *
+	 * @return the index entries of the blocks
+	 * @throws IOException if an I/O error occurred or the file is not a session file */
+	private List<Block> readHeader() throws IOException {
+		DataInputStream in= new DataInputStream(new BufferedInputStream(
+			Channels.newInputStream(file.getChannel())));
+
+		if (in.readInt() != SessionFormat.MAGIC) {
+			throw new IOException("This file does not appear to be a session file " +
+				"generated by the diagnostic tool.");
+		}
+
+		int version= in.readInt();
+
+		if (version > SessionFormat.VERSION) {
+			throw new IOException("Unsupported session file version " + version + ".");
+		}
+
+		codec= version >= 2 ? Codec.forId(in.readInt()) : Codec.NONE;
+
+		int[] parameterizations= new int[in.readInt()];
+
+		for (int i= 0; i < parameterizations.length; i++ ) {
+			String parameterization= in.readUTF();
+			int length= in.readInt();
+			byte[] encoding= null;
+
+			if (length >= 0) {
+				encoding= new byte[length];
+				in.readFully(encoding);
+			}
+
+			parameterizations[i]= ParameterizationRegistry.getInstance().register(
+				parameterization, encoding);
+		}
+
+		String[] metricNames= new String[in.readInt()];
+
+		for (int i= 0; i < metricNames.length; i++ ) {
+			metricNames[i]= in.readUTF();
+		}
+
+		int keys= in.readInt();
+		long fileLength= file.length();
+		List<Block> result= new ArrayList<>();
+
+		for (int j= 0; j < keys; j++ ) {
+			String algorithm= in.readUTF();
+			String problem= in.readUTF();
+			ResultKey key= new ResultKey(algorithm, problem, parameterizations[in.readInt()]);
+			int seeds= in.readInt();
+
+			for (int k= 0; k < seeds; k++ ) {
+				long offset= in.readLong();
+				int length= in.readInt();
+				int rawLength= version >= 2 ? in.readInt() : length;
+				String[] metrics= new String[in.readInt()];
+				int[] sizes= new int[metrics.length];
+				double[] finalValues= new double[metrics.length];
+
+				for (int i= 0; i < metrics.length; i++ ) {
+					metrics[i]= metricNames[in.readInt()];
+					sizes[i]= in.readInt();
+					finalValues[i]= in.readDouble();
+				}
+
+				if (offset < 0 || length < 0 || offset + length > fileLength) {
+					throw new EOFException("session file is truncated");
+				}
+
+				result.add(new Block(key, offset, length, rawLength, metrics, sizes,
+					finalValues));
+			}
+		}
+
+		return result;
+	}
+
+}
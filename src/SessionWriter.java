@@ -0,0 +1,382 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Block;
+import org.moeaframework.analysis.diagnostics.SessionFormat.Codec;
+
+/** Writes session files in the format described by {@link SessionFormat}. The header is written
+ * when the writer is created, with placeholders for the block locations. Blocks are then written
+ * in index order, and the locations are filled in when the writer is closed. Blocks are encoded
+ * and compressed in parallel, but at most a few blocks per processor are held in memory at a
+ * time. */
+public class SessionWriter implements Closeable {
+
+	/** The file being written. */
+	private final FileOutputStream file;
+
+	/** The buffered output stream used to write blocks. */
+	private final OutputStream out;
+
+	/** The codec used to compress blocks. */
+	private final Codec codec;
+
+	/** The index entries of the blocks, in the order they are written. */
+	private final List<Block> blocks;
+
+	/** The encoded header. */
+	private final byte[] header;
+
+	/** The position in the header of each block's location. */
+	private final int[] slots;
+
+	/** The blocks being encoded and compressed, in the order they are written. */
+	private final Queue<Future<Stored>> queue;
+
+	/** The maximum number of blocks being encoded and compressed at once. */
+	private final int window;
+
+	/** The position in the file where the next block is written. */
+	private long position;
+
+	/** The number of blocks submitted for writing. */
+	private int submitted;
+
+	/** The number of blocks written to the file. */
+	private int written;
+
+	/** A block ready to be written to the file. */
+	private static class Stored {
+
+		/** The contents of the block, as stored in the file. */
+		private final byte[] data;
+
+		/** The length of the block in bytes before compression. */
+		private final int rawLength;
+
+		/** Constructs a new block ready to be written to the file.
+		 *
+		 * @param data      the contents of the block, as stored in the file
+		 * @param rawLength the length of the block in bytes before compression */
+		public Stored(byte[] data, int rawLength) {
+			super();
+			this.data= data;
+			this.rawLength= rawLength;
+		}
+
+	}
+
+	/** Constructs a new session writer using the default codec and writes the header. Blocks for
+	 * the same key must be adjacent in the list of index entries.
+	 *
+	 * @param file   the file to write
+	 * @param blocks the index entries of the blocks, in the order they will be written
+	 * @throws IOException if an I/O error occurred */
+	public SessionWriter(File file, List<Block> blocks) throws IOException {
+		this(file, blocks, Codec.DEFLATE);
+	}
+
+	/** Constructs a new session writer and writes the header. Blocks for the same key must be
+	 * adjacent in the list of index entries.
+	 *
+	 * @param file   the file to write
+	 * @param blocks the index entries of the blocks, in the order they will be written
+	 * @param codec  the codec used to compress blocks
+	 * @throws IOException if an I/O error occurred */
+	public SessionWriter(File file, List<Block> blocks, Codec codec) throws IOException {
+		super();
+		this.codec= codec;
+		this.blocks= new ArrayList<>(blocks);
+
+		slots= new int[blocks.size()];
+		header= writeHeader();
+		queue= new ArrayDeque<>();
+		window= SessionFormat.BLOCKS_PER_PROCESSOR * SessionFormat.getParallelism();
+
+		this.file= new FileOutputStream(file);
+		out= new BufferedOutputStream(this.file);
+		out.write(header);
+		position= header.length;
+	}
+
+	/** Writes a collection of results to a session file.
+	 *
+	 * @param file    the file to write
+	 * @param results the results to write
+	 * @param codec   the codec used to compress blocks
+	 * @throws IOException if an I/O error occurred */
+	public static void write(File file, Map<ResultKey, List<Accumulator>> results, Codec codec)
+		throws IOException {
+		try (SessionWriter writer= new SessionWriter(file, SessionFormat.index(results), codec)) {
+			for (ResultKey key : new TreeSet<>(results.keySet())) {
+				for (Accumulator accumulator : results.get(key)) {
+					writer.write(accumulator);
+				}
+			}
+		}
+	}
+
+	/** Returns the codec used to compress blocks.
+	 *
+	 * @return the codec used to compress blocks */
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/** Encodes and writes the next block. The block is encoded and compressed in the background.
+	 *
+	 * @param accumulator the accumulator stored in the next block
+	 * @throws IOException if an I/O error occurred */
+	public void write(final Accumulator accumulator) throws IOException {
+		submit(new Callable<Stored>() {
+
+			@Override
+			public Stored call() throws IOException {
+				byte[] data= SessionFormat.encode(accumulator);
+				return new Stored(codec.compress(data), data.length);
+			}
+
+		});
+	}
+
+	/** Writes the next block, which has already been encoded but not compressed. The block is
+	 * compressed in the background.
+	 *
+	 * @param data the encoded contents of the next block
+	 * @throws IOException if an I/O error occurred */
+	public void write(final byte[] data) throws IOException {
+		submit(new Callable<Stored>() {
+
+			@Override
+			public Stored call() {
+				return new Stored(codec.compress(data), data.length);
+			}
+
+		});
+	}
+
+	/** Writes the next block, which has already been compressed with this writer's codec.
+	 *
+	 * @param data      the compressed contents of the next block
+	 * @param rawLength the length of the block in bytes before compression
+	 * @throws IOException if an I/O error occurred */
+	public void write(byte[] data, int rawLength) throws IOException {
+		final Stored stored= new Stored(data, rawLength);
+
+		submit(new Callable<Stored>() {
+
+			@Override
+			public Stored call() {
+				return stored;
+			}
+
+		});
+	}
+
+	/** Writes any remaining blocks, fills in the block locations in the header, and closes the
+	 * file.
+	 *
+	 * @throws IOException if an I/O error occurred or not all blocks were written */
+	@Override
+	public void close() throws IOException {
+		try {
+			while (!queue.isEmpty()) {
+				writeNext();
+			}
+
+			out.flush();
+
+			ByteBuffer buffer= ByteBuffer.wrap(header);
+
+			for (int i= 0; i < written; i++ ) {
+				buffer.putLong(slots[i], blocks.get(i).getOffset());
+				buffer.putInt(slots[i] + 8, blocks.get(i).getLength());
+				buffer.putInt(slots[i] + 12, blocks.get(i).getRawLength());
+			}
+
+			long count= 0;
+
+			while (buffer.hasRemaining()) {
+				count+= file.getChannel().write(buffer, count);
+			}
+		} finally {
+			for (Future<Stored> future : queue) {
+				future.cancel(true);
+			}
+
+			out.close();
+		}
+
+		if (written < blocks.size()) {
+			throw new IOException("only " + written + " of " + blocks.size() +
+				" blocks were written");
+		}
+	}
+
+	/** Submits the next block for encoding, writing earlier blocks as needed to stay within the
+	 * window of blocks being encoded.
+	 *
+	 * @param task the task encoding and compressing the block
+	 * @throws IOException if an I/O error occurred or all blocks have already been submitted */
+	private void submit(Callable<Stored> task) throws IOException {
+		if (submitted >= blocks.size()) { throw new IOException("all blocks have been written"); }
+
+		queue.add(SessionFormat.getExecutor().submit(task));
+		submitted++;
+
+		while (queue.size() > window) {
+			writeNext();
+		}
+	}
+
+	/** Waits for the oldest block being encoded and writes it to the file.
+	 *
+	 * @throws IOException if an I/O error occurred or the block could not be encoded */
+	private void writeNext() throws IOException {
+		Stored stored;
+
+		try {
+			stored= queue.peek().get();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+
+			throw new IOException(e.getCause());
+		}
+
+		queue.remove();
+		blocks.get(written++).setLocation(position, stored.data.length, stored.rawLength);
+		out.write(stored.data);
+		position+= stored.data.length;
+	}
+
+	/** Encodes the header, recording the position of each block's location.
+	 *
+	 * @return the encoded header
+	 * @throws IOException if an I/O error occurred */
+	private byte[] writeHeader() throws IOException {
+		ParameterizationRegistry registry= ParameterizationRegistry.getInstance();
+		Map<Integer, Integer> parameterizations= new HashMap<>();
+		Map<String, Integer> metrics= new HashMap<>();
+		List<Integer> parameterizationIds= new ArrayList<>();
+		List<String> metricNames= new ArrayList<>();
+		List<Integer> runs= new ArrayList<>();
+
+		for (int i= 0; i < blocks.size(); i++ ) {
+			Block block= blocks.get(i);
+			Integer id= block.getKey().getParameterizationId();
+
+			if (!parameterizations.containsKey(id)) {
+				parameterizations.put(id, parameterizationIds.size());
+				parameterizationIds.add(id);
+			}
+
+			for (String metric : block.getMetrics()) {
+				if (!metrics.containsKey(metric)) {
+					metrics.put(metric, metricNames.size());
+					metricNames.add(metric);
+				}
+			}
+
+			if (i == 0 || !block.getKey().equals(blocks.get(i - 1).getKey())) {
+				runs.add(i);
+			}
+		}
+
+		runs.add(blocks.size());
+
+		ByteArrayOutputStream buffer= new ByteArrayOutputStream();
+		DataOutputStream header= new DataOutputStream(buffer);
+
+		header.writeInt(SessionFormat.MAGIC);
+		header.writeInt(SessionFormat.VERSION);
+		header.writeInt(codec.getId());
+
+		header.writeInt(parameterizationIds.size());
+
+		for (int id : parameterizationIds) {
+			byte[] encoding= registry.getEncoding(id);
+
+			header.writeUTF(registry.getString(id));
+			header.writeInt(encoding == null ? -1 : encoding.length);
+
+			if (encoding != null) {
+				header.write(encoding);
+			}
+		}
+
+		header.writeInt(metricNames.size());
+
+		for (String metric : metricNames) {
+			header.writeUTF(metric);
+		}
+
+		header.writeInt(runs.size() - 1);
+
+		for (int j= 0; j < runs.size() - 1; j++ ) {
+			ResultKey key= blocks.get(runs.get(j)).getKey();
+
+			header.writeUTF(key.getAlgorithm());
+			header.writeUTF(key.getProblem());
+			header.writeInt(parameterizations.get(key.getParameterizationId()));
+			header.writeInt(runs.get(j + 1) - runs.get(j));
+
+			for (int i= runs.get(j); i < runs.get(j + 1); i++ ) {
+				Block block= blocks.get(i);
+
+				slots[i]= header.size();
+				header.writeLong(-1);
+				header.writeInt(-1);
+				header.writeInt(-1);
+				header.writeInt(block.getMetrics().size());
+
+				for (String metric : block.getMetrics()) {
+					header.writeInt(metrics.get(metric));
+					header.writeInt(block.getSize(metric));
+					header.writeDouble(block.getFinalValue(metric));
+				}
+			}
+		}
+
+		header.close();
+		return buffer.toByteArray();
+	}
+
+}
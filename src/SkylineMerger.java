@@ -0,0 +1,246 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.NondominatedPopulation;
+import org.moeaframework.core.Solution;
+
+/** Builds &epsilon;-box dominance archives in {@code O(n log n)} time for two and three objectives.
+ * Adding {@code n} solutions one at a time to an {@link EpsilonBoxDominanceArchive} compares each
+ * new solution against the whole archive. Here, the solutions are instead sorted by their
+ * &epsilon;-boxes. Within each box only the solution closest to the box corner is kept, with ties
+ * going to the earlier solution. The skyline of the remaining boxes is then found by a sweep in two
+ * dimensions or by a staircase search in three. The archive holds the same solutions in the same
+ * order as when they are added one at a time. Solutions violating constraints, non-finite
+ * objectives and other numbers of objectives fall back to adding one solution at a time. */
+public class SkylineMerger {
+
+	/** Constructs a new skyline merger; not used as all methods are static. */
+	private SkylineMerger() {
+		super();
+	}
+
+	/** Returns an &epsilon;-box dominance archive containing the nondominated solutions of an
+	 * existing archive followed by additional solutions.
+	 *
+	 * @param archive   the existing archive
+	 * @param epsilon   the &epsilon; of the archive
+	 * @param solutions the additional solutions
+	 * @return the archive resulting from adding the solutions to the existing archive */
+	public static NondominatedPopulation merge(NondominatedPopulation archive, double epsilon,
+		List<? extends Solution> solutions) {
+		Solution[] combined= new Solution[archive.size() + solutions.size()];
+
+		for (int i= 0; i < archive.size(); i++ ) {
+			combined[i]= archive.get(i);
+		}
+
+		for (int i= 0; i < solutions.size(); i++ ) {
+			combined[archive.size() + i]= solutions.get(i);
+		}
+
+		return merge(epsilon, Arrays.asList(combined));
+	}
+
+	/** Returns an &epsilon;-box dominance archive containing the nondominated solutions of the
+	 * specified solutions, as if each were added in order to an empty
+	 * {@link EpsilonBoxDominanceArchive}.
+	 *
+	 * @param epsilon   the &epsilon; of the archive
+	 * @param solutions the solutions
+	 * @return the archive of the solutions */
+	public static NondominatedPopulation merge(double epsilon, List<? extends Solution> solutions) {
+		int n= solutions.size();
+		int m= n == 0 ? 0 : solutions.get(0).getNumberOfObjectives();
+
+		if (m < 2 || m > 3 || !isSupported(solutions, m)) {
+			NondominatedPopulation result= new EpsilonBoxDominanceArchive(epsilon);
+
+			for (Solution solution : solutions) {
+				result.add(solution);
+			}
+
+			return result;
+		}
+
+		// the box index and distance to the box corner, as computed by the archive's comparator
+		final double[] boxes= new double[n * m];
+		final double[] distances= new double[n];
+		Integer[] order= new Integer[n];
+
+		for (int i= 0; i < n; i++ ) {
+			Solution solution= solutions.get(i);
+			double distance= 0.0;
+
+			for (int j= 0; j < m; j++ ) {
+				double index= Math.floor(solution.getObjective(j) / epsilon);
+				distance+= Math.pow(solution.getObjective(j) - index * epsilon, 2.0);
+				boxes[i * m + j]= index + 0.0;
+			}
+
+			distances[i]= Math.sqrt(distance);
+			order[i]= i;
+		}
+
+		final int dimensions= m;
+
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer a, Integer b) {
+				int flag= compareBoxes(boxes, a, b, dimensions);
+
+				if (flag != 0) {
+					return flag;
+				} else if (distances[a] < distances[b]) {
+					return -1;
+				} else if (distances[a] > distances[b]) {
+					return 1;
+				} else {
+					return Integer.compare(a, b);
+				}
+			}
+
+		});
+
+		boolean[] kept= new boolean[n];
+		double bestY= Double.POSITIVE_INFINITY;
+		TreeMap<Double, Double> staircase= new TreeMap<>();
+
+		for (int k= 0; k < n; k++ ) {
+			int i= order[k];
+
+			// only the first solution of each box, which is closest to its corner, can survive
+			if (k > 0 && compareBoxes(boxes, order[k - 1], i, m) == 0) {
+				continue;
+			}
+
+			// every earlier box has a smaller or equal first index, so box i is dominated when an
+			// earlier kept box is no larger in the remaining indices
+			if (m == 2) {
+				double y= boxes[i * m + 1];
+
+				if (y < bestY) {
+					bestY= y;
+					kept[i]= true;
+				}
+			} else {
+				double y= boxes[i * m + 1];
+				double z= boxes[i * m + 2];
+				Map.Entry<Double, Double> floor= staircase.floorEntry(y);
+
+				if (floor == null || floor.getValue() > z) {
+					kept[i]= true;
+
+					// remove the steps covered by the new box, keeping z decreasing in y
+					Map.Entry<Double, Double> step= staircase.ceilingEntry(y);
+
+					while (step != null && step.getValue() >= z) {
+						staircase.remove(step.getKey());
+						step= staircase.higherEntry(step.getKey());
+					}
+
+					staircase.put(y, z);
+				}
+			}
+		}
+
+		MergedArchive result= new MergedArchive(epsilon);
+
+		for (int i= 0; i < n; i++ ) {
+			if (kept[i]) {
+				result.addUnchecked(solutions.get(i));
+			}
+		}
+
+		return result;
+	}
+
+	/** Returns {@code true} if the sort-based merge applies to the specified solutions, which
+	 * requires that every solution has the same number of finite objectives and satisfies its
+	 * constraints.
+	 *
+	 * @param solutions the solutions
+	 * @param m         the number of objectives of the first solution
+	 * @return {@code true} if the sort-based merge applies to the solutions; {@code false}
+	 *         otherwise */
+	private static boolean isSupported(List<? extends Solution> solutions, int m) {
+		for (Solution solution : solutions) {
+			if (solution.getNumberOfObjectives() != m || solution.violatesConstraints()) {
+				return false;
+			}
+
+			for (int j= 0; j < m; j++ ) {
+				double value= solution.getObjective(j);
+
+				if (Double.isNaN(value) || Double.isInfinite(value)) { return false; }
+			}
+		}
+
+		return true;
+	}
+
+	/** Compares the boxes of two solutions lexicographically.
+	 *
+	 * @param boxes the box indices of each solution
+	 * @param a     the index of the first solution
+	 * @param b     the index of the second solution
+	 * @param m     the number of objectives
+	 * @return a negative, zero or positive value if the box of the first solution is less than,
+	 *         equal to or greater than the box of the second solution */
+	private static int compareBoxes(double[] boxes, int a, int b, int m) {
+		for (int j= 0; j < m; j++ ) {
+			double x= boxes[a * m + j];
+			double y= boxes[b * m + j];
+
+			if (x < y) { return -1; }
+
+			if (x > y) { return 1; }
+		}
+
+		return 0;
+	}
+
+	/** An &epsilon;-box dominance archive filled with solutions already known to be mutually
+	 * nondominated. Solutions added later are checked as usual. */
+	private static class MergedArchive extends EpsilonBoxDominanceArchive {
+
+		/** Constructs a new, empty archive.
+		 *
+		 * @param epsilon the &epsilon; of the archive */
+		public MergedArchive(double epsilon) {
+			super(epsilon);
+		}
+
+		/** Adds a solution without comparing it to the solutions in this archive.
+		 *
+		 * @param solution the solution */
+		public void addUnchecked(Solution solution) {
+			forceAddWithoutCheck(solution);
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+/** Receives the progress of a long-running task, such as saving or loading results, and tells the
+ * task whether it has been cancelled. Tasks report progress and check for cancellation between
+ * units of work, such as seeds or blocks. */
+public interface TaskProgress {
+
+	/** Invoked by the task to report its progress. This may be invoked from any thread.
+	 *
+	 * @param completed the number of units of work completed
+	 * @param total     the total number of units of work */
+	public void progressChanged(long completed, long total);
+
+	/** Returns {@code true} if the task has been cancelled and should stop; {@code false}
+	 * otherwise.
+	 *
+	 * @return {@code true} if the task has been cancelled and should stop; {@code false}
+	 *         otherwise */
+	public boolean isCancelled();
+
+}
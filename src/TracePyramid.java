@@ -0,0 +1,421 @@
+/* Copyright 2009-2019 David Hadka
+ *
+ * This file is part of the MOEA Framework.
+ *
+ * The MOEA Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The MOEA Framework is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the MOEA Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.moeaframework.analysis.diagnostics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.moeaframework.analysis.collector.Accumulator;
+
+/** Multi-resolution copy of the trace of a single metric within one accumulator. The samples are
+ * stored in primitive arrays, and each coarser level summarizes {@value #FACTOR} buckets of the
+ * level below by their minimum, maximum, and mean. Plots select the coarsest level that still
+ * provides one bucket per pixel for the visible NFE range, so drawing a trace costs time
+ * proportional to the plot width rather than to the length of the run. */
+public class TracePyramid {
+
+	/** The number of buckets of one level that are merged into a single bucket of the next
+	 * level. */
+	public static final int FACTOR= 4;
+
+	/** No further levels are built once a level contains at most this many buckets. */
+	private static final int MINIMUM_LEVEL_SIZE= 64;
+
+	/** The levels of this pyramid, ordered from finest to coarsest. Level {@code 0} contains the
+	 * individual samples. */
+	private final List<Level> levels;
+
+	/** One level of a trace pyramid. Each bucket covers a contiguous run of samples, identified by
+	 * the NFE of its first and last sample. */
+	public static class Level {
+
+		/** The number of samples summarized by each bucket, except possibly the last. */
+		private final int bucketSize;
+
+		/** The NFE of the first sample in each bucket. */
+		private final int[] firstNFE;
+
+		/** The NFE of the last sample in each bucket. */
+		private final int[] lastNFE;
+
+		/** The NFE at which the minimum of each bucket occurs. */
+		private final int[] minNFE;
+
+		/** The NFE at which the maximum of each bucket occurs. */
+		private final int[] maxNFE;
+
+		/** The minimum value in each bucket. */
+		private final double[] min;
+
+		/** The maximum value in each bucket. */
+		private final double[] max;
+
+		/** The mean value of each bucket. */
+		private final double[] mean;
+
+		/** The number of samples in each bucket; or {@code null} if every bucket holds exactly one
+		 * sample. */
+		private final int[] count;
+
+		/** Constructs a level from the raw samples of a trace. The arrays are shared rather than
+		 * copied, since every bucket holds a single sample.
+		 *
+		 * @param nfe    the NFE of each sample
+		 * @param values the value of each sample */
+		Level(int[] nfe, double[] values) {
+			this(1, nfe, nfe, nfe, nfe, values, values, values, null);
+		}
+
+		/** Constructs a level from its bucket summaries.
+		 *
+		 * @param bucketSize the number of samples summarized by each bucket
+		 * @param firstNFE   the NFE of the first sample in each bucket
+		 * @param lastNFE    the NFE of the last sample in each bucket
+		 * @param minNFE     the NFE at which the minimum of each bucket occurs
+		 * @param maxNFE     the NFE at which the maximum of each bucket occurs
+		 * @param min        the minimum value in each bucket
+		 * @param max        the maximum value in each bucket
+		 * @param mean       the mean value of each bucket
+		 * @param count      the number of samples in each bucket */
+		Level(int bucketSize, int[] firstNFE, int[] lastNFE, int[] minNFE, int[] maxNFE,
+			double[] min, double[] max, double[] mean, int[] count) {
+			super();
+			this.bucketSize= bucketSize;
+			this.firstNFE= firstNFE;
+			this.lastNFE= lastNFE;
+			this.minNFE= minNFE;
+			this.maxNFE= maxNFE;
+			this.min= min;
+			this.max= max;
+			this.mean= mean;
+			this.count= count;
+		}
+
+		/** Returns the number of buckets in this level.
+		 *
+		 * @return the number of buckets in this level */
+		public int size() {
+			return firstNFE.length;
+		}
+
+		/** Returns the number of samples summarized by each bucket, except possibly the last.
+		 *
+		 * @return the number of samples summarized by each bucket */
+		public int getBucketSize() {
+			return bucketSize;
+		}
+
+		/** Returns the NFE of the first sample in the specified bucket.
+		 *
+		 * @param index the bucket index
+		 * @return the NFE of the first sample in the specified bucket */
+		public int getFirstNFE(int index) {
+			return firstNFE[index];
+		}
+
+		/** Returns the NFE of the last sample in the specified bucket.
+		 *
+		 * @param index the bucket index
+		 * @return the NFE of the last sample in the specified bucket */
+		public int getLastNFE(int index) {
+			return lastNFE[index];
+		}
+
+		/** Returns the NFE at which the minimum of the specified bucket occurs.
+		 *
+		 * @param index the bucket index
+		 * @return the NFE at which the minimum of the specified bucket occurs */
+		public int getMinNFE(int index) {
+			return minNFE[index];
+		}
+
+		/** Returns the NFE at which the maximum of the specified bucket occurs.
+		 *
+		 * @param index the bucket index
+		 * @return the NFE at which the maximum of the specified bucket occurs */
+		public int getMaxNFE(int index) {
+			return maxNFE[index];
+		}
+
+		/** Returns the minimum value in the specified bucket.
+		 *
+		 * @param index the bucket index
+		 * @return the minimum value in the specified bucket */
+		public double getMin(int index) {
+			return min[index];
+		}
+
+		/** Returns the maximum value in the specified bucket.
+		 *
+		 * @param index the bucket index
+		 * @return the maximum value in the specified bucket */
+		public double getMax(int index) {
+			return max[index];
+		}
+
+		/** Returns the mean value of the specified bucket.
+		 *
+		 * @param index the bucket index
+		 * @return the mean value of the specified bucket */
+		public double getMean(int index) {
+			return mean[index];
+		}
+
+		/** Returns the number of samples in the specified bucket.
+		 *
+		 * @param index the bucket index
+		 * @return the number of samples in the specified bucket */
+		public int getCount(int index) {
+			return count == null ? 1 : count[index];
+		}
+
+		/** Returns the index of the first bucket that ends at or after the specified NFE; or
+		 * {@link #size()} if no such bucket exists.
+		 *
+		 * @param nfe the NFE
+		 * @return the index of the first bucket that ends at or after the specified NFE */
+		public int lowerIndex(double nfe) {
+			int low= 0;
+			int high= lastNFE.length;
+
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+
+				if (lastNFE[mid] < nfe) {
+					low= mid + 1;
+				} else {
+					high= mid;
+				}
+			}
+
+			return low;
+		}
+
+		/** Returns the index of the last bucket that starts at or before the specified NFE; or
+		 * {@code -1} if no such bucket exists.
+		 *
+		 * @param nfe the NFE
+		 * @return the index of the last bucket that starts at or before the specified NFE */
+		public int upperIndex(double nfe) {
+			int low= 0;
+			int high= firstNFE.length;
+
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+
+				if (firstNFE[mid] <= nfe) {
+					low= mid + 1;
+				} else {
+					high= mid;
+				}
+			}
+
+			return low - 1;
+		}
+
+		/** Builds the next coarser level by merging every {@value TracePyramid#FACTOR} buckets of
+		 * this level.
+		 *
+		 * @return the next coarser level */
+		Level coarsen() {
+			int n= (size() + FACTOR - 1) / FACTOR;
+			int[] newFirstNFE= new int[n];
+			int[] newLastNFE= new int[n];
+			int[] newMinNFE= new int[n];
+			int[] newMaxNFE= new int[n];
+			double[] newMin= new double[n];
+			double[] newMax= new double[n];
+			double[] newMean= new double[n];
+			int[] newCount= new int[n];
+
+			for (int i= 0; i < n; i++ ) {
+				int start= i * FACTOR;
+				int end= Math.min(start + FACTOR, size());
+				double sum= 0.0;
+
+				newFirstNFE[i]= firstNFE[start];
+				newLastNFE[i]= lastNFE[end - 1];
+				newMin[i]= min[start];
+				newMinNFE[i]= minNFE[start];
+				newMax[i]= max[start];
+				newMaxNFE[i]= maxNFE[start];
+
+				for (int j= start; j < end; j++ ) {
+					if (min[j] < newMin[i]) {
+						newMin[i]= min[j];
+						newMinNFE[i]= minNFE[j];
+					}
+
+					if (max[j] > newMax[i]) {
+						newMax[i]= max[j];
+						newMaxNFE[i]= maxNFE[j];
+					}
+
+					sum+= mean[j] * getCount(j);
+					newCount[i]+= getCount(j);
+				}
+
+				newMean[i]= sum / newCount[i];
+			}
+
+			return new Level(bucketSize * FACTOR, newFirstNFE, newLastNFE, newMinNFE, newMaxNFE,
+				newMin, newMax, newMean, newCount);
+		}
+
+	}
+
+	/** Constructs a trace pyramid from the specified samples. The NFE of the samples must be
+	 * non-decreasing. The arrays are stored without copying.
+	 *
+	 * @param nfe    the NFE of each sample
+	 * @param values the value of each sample */
+	public TracePyramid(int[] nfe, double[] values) {
+		super();
+
+		levels= new ArrayList<>();
+		levels.add(new Level(nfe, values));
+
+		while (levels.get(levels.size() - 1).size() > MINIMUM_LEVEL_SIZE) {
+			levels.add(levels.get(levels.size() - 1).coarsen());
+		}
+	}
+
+	/** Creates the trace pyramid for a metric stored in an accumulator.
+	 *
+	 * @param accumulator the accumulator
+	 * @param metric      the metric
+	 * @return the trace pyramid for the metric; or {@code null} if the accumulator does not contain
+	 *         the metric or the metric is not numeric */
+	public static TracePyramid create(Accumulator accumulator, String metric) {
+		if (!accumulator.keySet().contains(metric) || !accumulator.keySet().contains("NFE")) {
+			return null;
+		}
+
+		int size= Math.min(accumulator.size(metric), accumulator.size("NFE"));
+		int[] nfe= new int[size];
+		double[] values= new double[size];
+
+		for (int i= 0; i < size; i++ ) {
+			Serializable value= accumulator.get(metric, i);
+
+			if (!(value instanceof Number)) { return null; }
+
+			nfe[i]= ((Number) accumulator.get("NFE", i)).intValue();
+			values[i]= ((Number) value).doubleValue();
+		}
+
+		return new TracePyramid(nfe, values);
+	}
+
+	/** Creates the trace pyramids for every numeric metric stored in an accumulator.
+	 *
+	 * @param accumulator the accumulator
+	 * @return a map from each numeric metric to its trace pyramid */
+	public static Map<String, TracePyramid> createAll(Accumulator accumulator) {
+		Map<String, TracePyramid> traces= new HashMap<>();
+
+		for (String metric : accumulator.keySet()) {
+			TracePyramid trace= create(accumulator, metric);
+
+			if (trace != null) {
+				traces.put(metric, trace);
+			}
+		}
+
+		return traces;
+	}
+
+	/** Returns the number of samples in this trace.
+	 *
+	 * @return the number of samples in this trace */
+	public int size() {
+		return levels.get(0).size();
+	}
+
+	/** Returns the NFE of the specified sample.
+	 *
+	 * @param index the sample index
+	 * @return the NFE of the specified sample */
+	public int getNFE(int index) {
+		return levels.get(0).getFirstNFE(index);
+	}
+
+	/** Returns the value of the specified sample.
+	 *
+	 * @param index the sample index
+	 * @return the value of the specified sample */
+	public double getValue(int index) {
+		return levels.get(0).getMin(index);
+	}
+
+	/** Returns the NFE of the first sample; or {@code 0} if this trace is empty.
+	 *
+	 * @return the NFE of the first sample */
+	public int getMinimumNFE() {
+		return size() == 0 ? 0 : getNFE(0);
+	}
+
+	/** Returns the NFE of the last sample; or {@code 0} if this trace is empty.
+	 *
+	 * @return the NFE of the last sample */
+	public int getMaximumNFE() {
+		return size() == 0 ? 0 : getNFE(size() - 1);
+	}
+
+	/** Returns the number of levels in this pyramid, including the level of raw samples.
+	 *
+	 * @return the number of levels in this pyramid */
+	public int getLevelCount() {
+		return levels.size();
+	}
+
+	/** Returns the specified level of this pyramid. Level {@code 0} contains the raw samples.
+	 *
+	 * @param level the level
+	 * @return the specified level of this pyramid */
+	public Level getLevel(int level) {
+		return levels.get(level);
+	}
+
+	/** Returns the coarsest level that provides at least {@code pixels} buckets within the
+	 * specified NFE range. Level {@code 0} is returned when the range contains few enough samples
+	 * to be drawn directly.
+	 *
+	 * @param lower  the lower bound of the NFE range
+	 * @param upper  the upper bound of the NFE range
+	 * @param pixels the width of the plot in pixels
+	 * @return the coarsest level that provides at least {@code pixels} buckets within the range */
+	public int selectLevel(double lower, double upper, int pixels) {
+		Level raw= levels.get(0);
+		int samples= raw.upperIndex(upper) - raw.lowerIndex(lower) + 1;
+		int level= 0;
+
+		if (samples <= 2 * pixels) { return level; }
+
+		while ((level + 1 < levels.size()) &&
+			(samples / levels.get(level + 1).getBucketSize() >= pixels)) {
+			level++ ;
+		}
+
+		return level;
+	}
+
+}